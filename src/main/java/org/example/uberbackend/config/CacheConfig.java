@@ -0,0 +1,68 @@
+package org.example.uberbackend.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.example.uberbackend.util.CachedResult;
+import org.example.uberbackend.util.VerifiedToken;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.core.userdetails.UserDetails;
+import java.time.Duration;
+import java.time.Instant;
+
+@Configuration
+public class CacheConfig {
+
+    // Principals for JwtFilter, so authenticated requests don't hit the users collection.
+    // Entries are evicted when the user changes; the TTL bounds staleness across nodes.
+    @Bean
+    public Cache<String, UserDetails> userDetailsCache(
+            @Value("${security.user-cache.max-size:10000}") long maxSize,
+            @Value("${security.user-cache.ttl-seconds:300}") long ttlSeconds) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    // Already-verified JWTs keyed by SHA-256 digest; each entry expires with its token
+    @Bean
+    public Cache<String, VerifiedToken> verifiedTokenCache(
+            @Value("${jwt.verified-cache.max-size:10000}") long maxSize) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+                        return Math.max(0, Duration.between(Instant.now(), token.getExpiresAt()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, token, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    // Results of the global analytics endpoints; AnalyticsCache checks them against the ride version
+    @Bean
+    public Cache<String, CachedResult<?>> analyticsResultCache(
+            @Value("${analytics.cache.max-size:100}") long maxSize,
+            @Value("${analytics.cache.ttl-seconds:300}") long ttlSeconds) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+}
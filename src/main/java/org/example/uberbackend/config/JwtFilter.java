@@ -6,23 +6,38 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.example.uberbackend.service.UserService;
 import org.example.uberbackend.util.JwtUtil;
+import org.example.uberbackend.util.VerifiedToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
 
 @Component
 public class JwtFilter extends OncePerRequestFilter {
 
+    private static final Logger log = LoggerFactory.getLogger(JwtFilter.class);
+    private static final String PROMETHEUS_PATH = "/actuator/prometheus";
+
     @Autowired
     private JwtUtil jwtUtil;
 
     @Autowired
     private UserService userService;
 
+    // Long-lived bearer token for the Prometheus scraper; empty means admin JWTs only
+    @Value("${metrics.scrape-token:}")
+    private String scrapeToken;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
@@ -31,35 +46,49 @@ public class JwtFilter extends OncePerRequestFilter {
 
         String path = request.getRequestURI();
 
-        if (path.startsWith("/api/auth/") || path.startsWith("/api/health/")) {
+        if (path.startsWith("/api/auth/") || path.startsWith("/api/health/")
+                || (path.startsWith("/actuator/") && !path.equals(PROMETHEUS_PATH))) {
             chain.doFilter(request, response);
             return;
         }
 
         String authHeader = request.getHeader("Authorization");
 
+        if (path.equals(PROMETHEUS_PATH) && isScrapeToken(authHeader)) {
+            SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                    "prometheus", null, List.of(new SimpleGrantedAuthority("ROLE_METRICS"))));
+            chain.doFilter(request, response);
+            return;
+        }
+
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             try {
                 String token = authHeader.substring(7);
-                String username = jwtUtil.extractUsername(token);
+                VerifiedToken verified = jwtUtil.verify(token);
+                String username = verified.getUsername();
 
                 if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    UserDetails userDetails = userService.loadUserByUsername(username);
-
-                    if (jwtUtil.validateToken(token, username)) {
-                        UsernamePasswordAuthenticationToken authToken =
-                            new UsernamePasswordAuthenticationToken(
-                                userDetails, null, userDetails.getAuthorities()
-                            );
-                        SecurityContextHolder.getContext().setAuthentication(authToken);
-                    }
+                    UserDetails userDetails = userService.loadCachedUser(username);
+
+                    UsernamePasswordAuthenticationToken authToken =
+                        new UsernamePasswordAuthenticationToken(
+                            userDetails, null, userDetails.getAuthorities()
+                        );
+                    SecurityContextHolder.getContext().setAuthentication(authToken);
                 }
             } catch (Exception e) {
-                System.err.println("JWT validation failed: " + e.getMessage());
+                log.debug("JWT validation failed: {}", e.getMessage());
             }
         }
 
         chain.doFilter(request, response);
     }
-}
 
+    private boolean isScrapeToken(String authHeader) {
+        if (scrapeToken == null || scrapeToken.isEmpty() || authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return false;
+        }
+        return MessageDigest.isEqual(scrapeToken.getBytes(StandardCharsets.UTF_8),
+                authHeader.substring(7).getBytes(StandardCharsets.UTF_8));
+    }
+}
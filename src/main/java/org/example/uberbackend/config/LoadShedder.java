@@ -0,0 +1,89 @@
+package org.example.uberbackend.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Tracks an exponentially weighted average of MongoDB ride-query latency (fed by
+// MongoCommandMetrics) and decides how much of the expensive read traffic to turn
+// away: nothing below load-shedding.start-ms, everything at load-shedding.max-ms,
+// linearly in between. Writes and ride lifecycle calls are never shed.
+//
+// Only finds on the rides collection issued while serving a request are sampled,
+// i.e. the queries the shed endpoints run. Migration, backfill and scheduled jobs run
+// on their own threads, NDJSON getMores on async threads, and the stats rebuild reads
+// other collections and runs aggregations, so a long batch job can't make the app
+// turn away users while the database is fine.
+@Component
+public class LoadShedder {
+
+    // Without fresh samples the average says nothing about the database any more
+    private static final long STALE_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final String RIDES = "rides";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${load-shedding.enabled:true}")
+    private boolean enabled;
+
+    @Value("${load-shedding.start-ms:250}")
+    private double startMillis;
+
+    @Value("${load-shedding.max-ms:1000}")
+    private double maxMillis;
+
+    // Weight of each new sample
+    @Value("${load-shedding.alpha:0.05}")
+    private double alpha;
+
+    private final AtomicLong averageBits = new AtomicLong(Double.doubleToLongBits(0));
+    private volatile long lastSampleNanos;
+
+    @PostConstruct
+    void registerMeters() {
+        Gauge.builder("mongo.latency.average", this, LoadShedder::getAverageMillis)
+                .description("Moving average of request-path ride query latency used for load shedding")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    public void record(String commandName, String collection, long elapsedNanos) {
+        if (!"find".equals(commandName) || !RIDES.equals(collection)
+                || RequestContextHolder.getRequestAttributes() == null) {
+            return;
+        }
+        double sample = elapsedNanos / 1_000_000.0;
+        long current;
+        long next;
+        do {
+            current = averageBits.get();
+            double average = Double.longBitsToDouble(current);
+            next = Double.doubleToLongBits(average + alpha * (sample - average));
+        } while (!averageBits.compareAndSet(current, next));
+        lastSampleNanos = System.nanoTime();
+    }
+
+    public double getAverageMillis() {
+        return Double.longBitsToDouble(averageBits.get());
+    }
+
+    public boolean shouldShed() {
+        if (!enabled || System.nanoTime() - lastSampleNanos > STALE_NANOS) {
+            return false;
+        }
+        double average = getAverageMillis();
+        if (average <= startMillis) {
+            return false;
+        }
+        double fraction = (average - startMillis) / Math.max(1, maxMillis - startMillis);
+        return fraction >= 1 || ThreadLocalRandom.current().nextDouble() < fraction;
+    }
+}
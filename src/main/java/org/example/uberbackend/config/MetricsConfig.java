@@ -0,0 +1,39 @@
+package org.example.uberbackend.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.mongodb.autoconfigure.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import java.util.Map;
+
+@Configuration
+public class MetricsConfig {
+
+    // Applied to both the blocking and the reactive client built by Spring Boot
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoCommandMetricsCustomizer(MongoCommandMetrics mongoCommandMetrics) {
+        return settings -> settings.addCommandListener(mongoCommandMetrics);
+    }
+
+    // Hit/miss/eviction counters for every Caffeine cache bean, tagged with the bean name
+    @Bean
+    public MeterBinder caffeineCacheMetrics(Map<String, Cache<?, ?>> caches) {
+        return registry -> caches.forEach((name, cache) -> CaffeineCacheMetrics.monitor(registry, cache, name));
+    }
+
+    // Saturation of the password hashing pool: a growing queue means logins are
+    // about to be rejected with 503
+    @Bean
+    public MeterBinder passwordHashingMetrics(PasswordEncoder passwordEncoder) {
+        return registry -> {
+            if (passwordEncoder instanceof BoundedPasswordEncoder bounded) {
+                Gauge.builder("password.hashing.queued", bounded, BoundedPasswordEncoder::getQueued).register(registry);
+                Gauge.builder("password.hashing.active", bounded, BoundedPasswordEncoder::getActive).register(registry);
+            }
+        };
+    }
+}
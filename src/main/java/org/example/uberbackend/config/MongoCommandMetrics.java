@@ -0,0 +1,130 @@
+package org.example.uberbackend.config;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.json.JsonWriterSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Times every command sent by the blocking and reactive Mongo clients as
+// mongo.commands{command, collection, status} and logs the ones slower than
+// mongo.slow-command-ms, with the shape of the command that was sent: field names and
+// operators are kept, every value is replaced by "?" so no user data reaches the log.
+@Component
+public class MongoCommandMetrics implements CommandListener {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoCommandMetrics.class);
+    private static final JsonWriterSettings SLOW_LOG_JSON = JsonWriterSettings.builder().maxLength(1000).build();
+    private static final BsonString REDACTED = new BsonString("?");
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private LoadShedder loadShedder;
+
+    @Value("${mongo.slow-command-ms:200}")
+    private long slowCommandMillis;
+
+    // Succeeded/failed events don't carry the command, so keep what we need from the start event
+    private final Map<Integer, StartedCommand> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        BsonDocument command = event.getCommand();
+        // The command document is only valid during this callback, so keep a copy of its
+        // bytes; it is only rendered for the few commands that turn out to be slow
+        BsonDocument copy = slowCommandMillis > 0 ? command.clone() : null;
+        inFlight.put(event.getRequestId(), new StartedCommand(collectionOf(event.getCommandName(), command), copy));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        finished(event.getRequestId(), event.getCommandName(), event.getDatabaseName(),
+                event.getElapsedTime(TimeUnit.NANOSECONDS), "success");
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        finished(event.getRequestId(), event.getCommandName(), event.getDatabaseName(),
+                event.getElapsedTime(TimeUnit.NANOSECONDS), "failed");
+    }
+
+    private void finished(int requestId, String commandName, String database, long elapsedNanos, String status) {
+        StartedCommand started = inFlight.remove(requestId);
+        String collection = started == null ? "unknown" : started.collection;
+
+        timer(commandName, collection, status).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        loadShedder.record(commandName, collection, elapsedNanos);
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        if (slowCommandMillis > 0 && elapsedMillis >= slowCommandMillis) {
+            log.warn("Slow Mongo {} on {}.{} took {} ms ({}): {}", commandName, database, collection,
+                    elapsedMillis, status, started == null || started.command == null ? "" : redacted(commandName, started.command));
+        }
+    }
+
+    private Timer timer(String command, String collection, String status) {
+        return timers.computeIfAbsent(command + '/' + collection + '/' + status, key -> Timer.builder("mongo.commands")
+                .description("MongoDB command latency")
+                .tag("command", command)
+                .tag("collection", collection)
+                .tag("status", status)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    // find/insert/update/aggregate/... name the collection as the command's value;
+    // getMore carries it in "collection"; admin commands (hello, ping) have none
+    private static String collectionOf(String commandName, BsonDocument command) {
+        BsonValue value = command.get(commandName);
+        if (value != null && value.isString()) {
+            return value.asString().getValue();
+        }
+        BsonValue collection = command.get("collection");
+        if (collection != null && collection.isString()) {
+            return collection.asString().getValue();
+        }
+        return "none";
+    }
+
+    // The command name keeps its collection and $db stays; everything else is reduced to its shape
+    private static String redacted(String commandName, BsonDocument command) {
+        BsonDocument shape = new BsonDocument();
+        command.forEach((key, value) -> shape.put(key,
+                key.equals(commandName) || key.equals("$db") ? value : redact(value)));
+        return shape.toJson(SLOW_LOG_JSON);
+    }
+
+    private static BsonValue redact(BsonValue value) {
+        if (value.isDocument()) {
+            BsonDocument document = new BsonDocument();
+            value.asDocument().forEach((key, nested) -> document.put(key, redact(nested)));
+            return document;
+        }
+        if (value.isArray()) {
+            BsonArray array = new BsonArray();
+            value.asArray().forEach(element -> array.add(redact(element)));
+            return array;
+        }
+        return REDACTED;
+    }
+
+    private record StartedCommand(String collection, BsonDocument command) {
+    }
+}
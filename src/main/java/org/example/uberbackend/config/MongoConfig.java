@@ -0,0 +1,39 @@
+package org.example.uberbackend.config;
+
+import org.example.uberbackend.model.RideStatus;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import java.util.List;
+
+@Configuration
+public class MongoConfig {
+
+    // Used by entity mapping, query/update mapping and the reactive template alike
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(List.of(
+                new RideStatusToCode(),
+                new CodeToRideStatus()
+        ));
+    }
+
+    @WritingConverter
+    static class RideStatusToCode implements Converter<RideStatus, Integer> {
+        @Override
+        public Integer convert(RideStatus status) {
+            return status.getCode();
+        }
+    }
+
+    @ReadingConverter
+    static class CodeToRideStatus implements Converter<Integer, RideStatus> {
+        @Override
+        public RideStatus convert(Integer code) {
+            return RideStatus.fromCode(code);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.uberbackend.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tools.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Runs right after JwtFilter, so callers with a valid token are limited per user
+// and everyone else per IP. Created in SecurityConfig rather than as a @Component
+// so it only runs inside the security chain.
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+
+    public RateLimitFilter(RateLimiter rateLimiter, ObjectMapper objectMapper) {
+        this.rateLimiter = rateLimiter;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain chain)
+            throws ServletException, IOException {
+
+        String path = request.getRequestURI();
+        if (path.startsWith("/api/health/") || path.startsWith("/actuator/")) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        RateLimiter.Rejection rejection = rateLimiter.check(request, callerOf(request));
+        if (rejection == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        // Same body as GlobalExceptionHandler so clients see one error format
+        Map<String, Object> errorResponse = new LinkedHashMap<>();
+        errorResponse.put("timestamp", LocalDateTime.now().toString());
+        errorResponse.put("status", rejection.status().value());
+        errorResponse.put("error", rejection.status().toString());
+        errorResponse.put("message", rejection.message());
+
+        response.setStatus(rejection.status().value());
+        response.setHeader("Retry-After", String.valueOf(Math.max(1, (rejection.retryAfterMillis() + 999) / 1000)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), errorResponse);
+    }
+
+    // Behind a proxy getRemoteAddr() is the proxy unless server.forward-headers-strategy
+    // is set; Tomcat then takes the client from X-Forwarded-For, but only when the
+    // connection comes from a trusted proxy (server.tomcat.remoteip.internal-proxies)
+    private static String callerOf(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,141 @@
+package org.example.uberbackend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import org.example.uberbackend.util.TokenBuckets;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Decides whether a request may proceed. Every caller (user, or IP when not logged
+// in) has an overall bucket plus one bucket per route group, so hammering the
+// Mongo-heavy list/search endpoints runs out long before the cheap ones do.
+// On top of that LoadShedder turns away part of the list/search traffic while
+// MongoDB is slow, which keeps writes and the ride lifecycle responsive.
+@Component
+public class RateLimiter {
+
+    public enum Group {
+        AUTH(false), LIST(true), SEARCH(true), WRITE(false), OTHER(false);
+
+        private final boolean sheddable;
+
+        Group(boolean sheddable) {
+            this.sheddable = sheddable;
+        }
+    }
+
+    public record Rejection(HttpStatus status, long retryAfterMillis, String message) {}
+
+    @Autowired
+    private LoadShedder loadShedder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rate-limit.slots:65536}")
+    private int slots;
+
+    @Value("${rate-limit.all.per-second:50}")
+    private long allPerSecond;
+    @Value("${rate-limit.all.burst:100}")
+    private long allBurst;
+
+    @Value("${rate-limit.auth.per-second:5}")
+    private long authPerSecond;
+    @Value("${rate-limit.auth.burst:10}")
+    private long authBurst;
+
+    @Value("${rate-limit.list.per-second:2}")
+    private long listPerSecond;
+    @Value("${rate-limit.list.burst:5}")
+    private long listBurst;
+
+    @Value("${rate-limit.search.per-second:10}")
+    private long searchPerSecond;
+    @Value("${rate-limit.search.burst:20}")
+    private long searchBurst;
+
+    @Value("${rate-limit.write.per-second:20}")
+    private long writePerSecond;
+    @Value("${rate-limit.write.burst:40}")
+    private long writeBurst;
+
+    private TokenBuckets buckets;
+    private TokenBuckets.Limit allLimit;
+    private final Map<Group, TokenBuckets.Limit> groupLimits = new EnumMap<>(Group.class);
+    private final Map<Group, Counter> limited = new EnumMap<>(Group.class);
+    private final Map<Group, Counter> shed = new EnumMap<>(Group.class);
+
+    @PostConstruct
+    void init() {
+        buckets = new TokenBuckets(slots);
+        allLimit = new TokenBuckets.Limit(allPerSecond, allBurst);
+        groupLimits.put(Group.AUTH, new TokenBuckets.Limit(authPerSecond, authBurst));
+        groupLimits.put(Group.LIST, new TokenBuckets.Limit(listPerSecond, listBurst));
+        groupLimits.put(Group.SEARCH, new TokenBuckets.Limit(searchPerSecond, searchBurst));
+        groupLimits.put(Group.WRITE, new TokenBuckets.Limit(writePerSecond, writeBurst));
+
+        for (Group group : Group.values()) {
+            limited.put(group, rejectedCounter("rate_limited", group));
+            shed.put(group, rejectedCounter("shed", group));
+        }
+    }
+
+    // Returns null when the request may proceed
+    public Rejection check(HttpServletRequest request, String caller) {
+        if (!enabled) {
+            return null;
+        }
+        Group group = groupOf(request.getMethod(), request.getRequestURI());
+
+        if (group.sheddable && loadShedder.shouldShed()) {
+            shed.get(group).increment();
+            return new Rejection(HttpStatus.SERVICE_UNAVAILABLE, 1000, "Server is busy, retry later");
+        }
+
+        long wait = buckets.tryAcquire(caller, allLimit);
+        TokenBuckets.Limit groupLimit = groupLimits.get(group);
+        if (wait == 0 && groupLimit != null) {
+            wait = buckets.tryAcquire(caller + '|' + group, groupLimit);
+        }
+        if (wait > 0) {
+            limited.get(group).increment();
+            return new Rejection(HttpStatus.TOO_MANY_REQUESTS, wait, "Rate limit exceeded, retry later");
+        }
+        return null;
+    }
+
+    static Group groupOf(String method, String path) {
+        if (path.startsWith("/api/auth/")) {
+            return Group.AUTH;
+        }
+        if (!"GET".equals(method)) {
+            return path.startsWith("/api/") ? Group.WRITE : Group.OTHER;
+        }
+        if (path.equals("/api/rides") || path.equals("/api/rides/") || path.startsWith("/api/v2/rides")) {
+            return Group.LIST;
+        }
+        // /open is served from memory and /events is a long-lived stream
+        if (path.startsWith("/api/rides/") && !path.equals("/api/rides/open") && !path.equals("/api/rides/events")) {
+            return Group.SEARCH;
+        }
+        return Group.OTHER;
+    }
+
+    private Counter rejectedCounter(String reason, Group group) {
+        return Counter.builder("http.server.requests.rejected")
+                .description("Requests turned away by rate limiting or load shedding")
+                .tag("reason", reason)
+                .tag("group", group.name().toLowerCase())
+                .register(meterRegistry);
+    }
+}
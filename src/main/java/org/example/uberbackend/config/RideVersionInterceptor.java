@@ -0,0 +1,64 @@
+package org.example.uberbackend.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.uberbackend.service.RideVersionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import java.util.Map;
+
+// Conditional GET for @RideVersioned endpoints. The ETag is the current ride
+// version plus a hash of the URL and Accept header, read before the handler runs.
+// RideService bumps the version right after each write, so an ETag handed out while
+// a write is in flight stops matching as soon as it completes. Versions are read
+// from memory (see RideVersionService); a GET never waits on MongoDB for them.
+@Component
+public class RideVersionInterceptor implements HandlerInterceptor {
+
+    @Autowired
+    private RideVersionService rideVersionService;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod method)) {
+            return true;
+        }
+        RideVersioned versioned = method.getMethodAnnotation(RideVersioned.class);
+        if (versioned == null) {
+            return true;
+        }
+
+        String version;
+        if (versioned.user().isEmpty()) {
+            version = rideVersionService.global();
+        } else {
+            String username = pathVariable(request, versioned.user());
+            if (username == null) {
+                return true;
+            }
+            version = rideVersionService.user(username);
+        }
+
+        String variant = request.getRequestURI() + '?' + request.getQueryString() + '|' + request.getHeader(HttpHeaders.ACCEPT);
+        String etag = "W/\"" + version + "." + Integer.toHexString(variant.hashCode()) + "\"";
+
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) == null) {
+            // Nothing to compare against
+            response.setHeader(HttpHeaders.ETAG, etag);
+            return true;
+        }
+        // Sets the ETag header and, when If-None-Match matches, the 304 status
+        return !new ServletWebRequest(request, response).checkNotModified(etag);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String pathVariable(HttpServletRequest request, String name) {
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        return variables == null ? null : variables.get(name);
+    }
+}
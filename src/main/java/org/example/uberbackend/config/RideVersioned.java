@@ -0,0 +1,18 @@
+package org.example.uberbackend.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marks a GET endpoint whose response only changes when rides change. The
+// RideVersionInterceptor answers If-None-Match with 304 before the handler runs.
+// With user set, the ETag follows only that path variable's rides instead of
+// every ride write.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RideVersioned {
+
+    // Name of the path variable holding the passenger/driver username
+    String user() default "";
+}
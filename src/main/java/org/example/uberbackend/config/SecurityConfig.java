@@ -1,18 +1,21 @@
 package org.example.uberbackend.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import tools.jackson.databind.ObjectMapper;
 
 @Configuration
 @EnableWebSecurity
@@ -22,9 +25,21 @@ public class SecurityConfig {
     @Lazy
     private JwtFilter jwtFilter;
 
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // BCrypt runs on its own bounded pool; threads <= 0 means half the cores
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${security.password.bcrypt-strength:10}") int strength,
+            @Value("${security.password.threads:0}") int threads,
+            @Value("${security.password.queue-capacity:64}") int queueCapacity,
+            @Value("${security.password.timeout-ms:5000}") long timeoutMs) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(strength, poolSize, queueCapacity, timeoutMs);
     }
 
     @Bean
@@ -47,11 +62,25 @@ public class SecurityConfig {
 
                 .requestMatchers("/api/auth/**", "/api/health/**").permitAll()
 
+                .requestMatchers("/actuator/health").permitAll()
+
+                // Metrics expose collection names, latencies and traffic volume: admins or the scraper token only
+                .requestMatchers("/actuator/prometheus").hasAnyRole("ADMIN", "METRICS")
+
+                // Async re-dispatches of SSE/NDJSON streams were authorized on the original request
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
+                // Recomputes and replaces every analytics summary
+                .requestMatchers(HttpMethod.POST, "/api/analytics/rebuild").hasRole("ADMIN")
+
                 .anyRequest().authenticated()
             )
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
 
         http.addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
+        // Anchored on a class with a registered order: jwtFilter is a lazy proxy, so
+        // JwtFilter.class itself has none. Before/after the same anchor keeps JwtFilter first.
+        http.addFilterAfter(new RateLimitFilter(rateLimiter, objectMapper), UsernamePasswordAuthenticationFilter.class);
         return http.build();
     }
 }
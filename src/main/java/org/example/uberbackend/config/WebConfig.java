@@ -0,0 +1,30 @@
+package org.example.uberbackend.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private RideVersionInterceptor rideVersionInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(rideVersionInterceptor).addPathPatterns("/api/rides/**", "/api/analytics/**");
+    }
+
+    // Streamed responses (Flux return values, /api/v2/rides) write each element with a
+    // blocking servlet write on this executor. One virtual thread per write, so a client
+    // that stops reading parks its own thread instead of holding a slot in a shared pool.
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("mvc-stream-");
+        executor.setVirtualThreads(true);
+        configurer.setTaskExecutor(executor);
+    }
+}
@@ -4,24 +4,44 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.bson.Document;
+import org.example.uberbackend.config.RideVersioned;
+import org.example.uberbackend.service.AnalyticsCache;
 import org.example.uberbackend.service.AnalyticsService;
+import org.example.uberbackend.service.RideStatsService;
+import org.example.uberbackend.service.RideVersionService;
+import org.example.uberbackend.util.CachedResult;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/analytics")
-@Tag(name = "Analytics APIs", description = "MongoDB aggregation pipelines for business analytics and reporting")
+@Tag(name = "Analytics APIs", description = "Business analytics served from incrementally maintained summary documents")
 public class AnalyticsController {
 
     @Autowired
     private AnalyticsService analyticsService;
 
+    @Autowired
+    private RideStatsService rideStatsService;
+
+    @Autowired
+    private AnalyticsCache analyticsCache;
+
+    @Autowired
+    private RideVersionService rideVersionService;
+
     // API 1: Driver earnings
     @GetMapping("/driver/{driver}/earnings")
+    @RideVersioned(user = "driver")
     @Operation(
         summary = "Get driver total earnings",
-        description = "Calculate total earnings for a driver from COMPLETED rides only. Uses SUM aggregation on fare field."
+        description = "Calculate total earnings for a driver from COMPLETED rides only. Reads the driver summary document."
     )
     public Double getDriverEarnings(
         @Parameter(description = "Driver username") @PathVariable String driver
@@ -33,17 +53,18 @@ public class AnalyticsController {
     @GetMapping("/rides-per-day")
     @Operation(
         summary = "Get rides per day",
-        description = "Group rides by date and count. Returns array of {date, ridesCount} sorted by date descending. Uses GROUP BY aggregation."
+        description = "Group rides by date and count. Returns array of {date, ridesCount} sorted by date descending. Reads the per-day summary documents; recomputed after ride writes at most once per analytics.cache.debounce-ms, with the Age header giving the result age in seconds."
     )
-    public List<Document> getRidesPerDay() {
-        return analyticsService.getRidesPerDay();
+    public ResponseEntity<List<Document>> getRidesPerDay(@Parameter(hidden = true) WebRequest request) {
+        return cached(AnalyticsCache.RIDES_PER_DAY, analyticsService::getRidesPerDay, request);
     }
 
     // API 3: Driver summary
     @GetMapping("/driver/{driverId}/summary")
+    @RideVersioned(user = "driverId")
     @Operation(
         summary = "Get driver summary",
-        description = "Comprehensive driver statistics: total rides, completed rides, average distance, total fare. Uses complex aggregation with conditional SUM."
+        description = "Comprehensive driver statistics: total rides, completed rides, average distance, total fare. Reads the driver summary document."
     )
     public Document getDriverSummary(
         @Parameter(description = "Driver username") @PathVariable String driverId
@@ -53,9 +74,10 @@ public class AnalyticsController {
 
     // API 4: User spending
     @GetMapping("/user/{userId}/spending")
+    @RideVersioned(user = "userId")
     @Operation(
         summary = "Get user spending",
-        description = "Calculate total spending and completed rides for a passenger. Only counts COMPLETED rides. Uses MATCH + GROUP aggregation."
+        description = "Calculate total spending and completed rides for a passenger. Only counts COMPLETED rides. Reads the passenger summary document."
     )
     public Document getUserSpending(
         @Parameter(description = "Passenger username") @PathVariable String userId
@@ -67,10 +89,53 @@ public class AnalyticsController {
     @GetMapping("/status-summary")
     @Operation(
         summary = "Get status summary",
-        description = "Count rides grouped by status (REQUESTED, ACCEPTED, COMPLETED). Returns array of {status, ridesCount}. Uses GROUP BY status."
+        description = "Count rides grouped by status (REQUESTED, ACCEPTED, COMPLETED). Returns array of {status, ridesCount}. Reads the per-status summary documents; recomputed after ride writes at most once per analytics.cache.debounce-ms, with the Age header giving the result age in seconds."
     )
-    public List<Document> getStatusSummary() {
-        return analyticsService.getStatusSummary();
+    public ResponseEntity<List<Document>> getStatusSummary(@Parameter(hidden = true) WebRequest request) {
+        return cached(AnalyticsCache.STATUS_SUMMARY, analyticsService::getStatusSummary, request);
     }
-}
 
+    // Maintenance: recompute the summaries from the rides collection
+    @PostMapping("/rebuild")
+    @Operation(
+        summary = "Rebuild analytics counters (Admin only)",
+        description = "Recomputes driver, passenger, per-day and per-status summaries from the rides collection, reports mismatches with the stored counters and replaces them. Use dryRun=true to only check. Requires ROLE_ADMIN. Returns 409 while the ride schema migration is unfinished."
+    )
+    public Document rebuildCounters(
+        @Parameter(description = "Only compare, don't overwrite") @RequestParam(defaultValue = "false") boolean dryRun
+    ) {
+        Document report = rideStatsService.rebuild(dryRun);
+        analyticsCache.invalidateAll();
+        if (!dryRun) {
+            rideVersionService.bumpAll();
+        }
+        return report;
+    }
+
+    // Age header: seconds since the cached result was computed. The ETag is the ride
+    // version the result was computed from, not the current one: the cache may serve
+    // an older result within its debounce window, and a newer ETag on it would hide
+    // the update. An ETag of the current version is answered with 304 before the
+    // cache is consulted, so a client that is up to date never causes a recompute.
+    private <T> ResponseEntity<T> cached(String key, Supplier<T> loader, WebRequest request) {
+        String current = etag(rideVersionService.global());
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && ifNoneMatch.contains(current)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(current).build();
+        }
+
+        CachedResult<T> result = analyticsCache.get(key, loader);
+        String etag = etag(result.getVersion());
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .header(HttpHeaders.AGE, String.valueOf(result.getAgeSeconds()))
+                .body(result.getValue());
+    }
+
+    private static String etag(String version) {
+        return "W/\"" + version + "\"";
+    }
+}
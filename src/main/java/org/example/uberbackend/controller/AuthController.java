@@ -9,14 +9,17 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.example.uberbackend.dto.AuthRequest;
 import org.example.uberbackend.dto.ErrorResponse;
 import org.example.uberbackend.dto.LoginResponse;
+import org.example.uberbackend.dto.RefreshRequest;
 import org.example.uberbackend.model.User;
+import org.example.uberbackend.service.RefreshTokenService;
 import org.example.uberbackend.service.UserService;
 import org.example.uberbackend.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.web.bind.annotation.*;
-import java.util.Map;
+import org.springframework.web.server.ResponseStatusException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -32,6 +35,9 @@ public class AuthController {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
     @PostMapping("/register")
     @Operation(
         summary = "Register new user",
@@ -49,7 +55,7 @@ public class AuthController {
     @PostMapping("/login")
     @Operation(
         summary = "Login user",
-        description = "Authenticate user credentials and receive JWT token. Token must be included in Authorization header for protected endpoints."
+        description = "Authenticate user credentials and receive a short-lived JWT access token plus a refresh token. The access token must be included in Authorization header for protected endpoints; renew it with /api/auth/refresh instead of logging in again."
     )
     @ApiResponses(value = {
         @ApiResponse(
@@ -77,7 +83,7 @@ public class AuthController {
             )
         )
     })
-    public Map<String, String> login(@RequestBody AuthRequest request) {
+    public LoginResponse login(@RequestBody AuthRequest request) {
         authenticationManager.authenticate(
             new UsernamePasswordAuthenticationToken(
                 request.getUsername(),
@@ -86,9 +92,57 @@ public class AuthController {
         );
 
         User user = userService.findByUsername(request.getUsername());
-        String token = jwtUtil.generateToken(user.getUsername(), user.getRole());
+        return tokens(user.getUsername(), user.getRole(), refreshTokenService.issue(user.getUsername()));
+    }
+
+    @PostMapping("/refresh")
+    @Operation(
+        summary = "Refresh access token",
+        description = "Exchanges a refresh token for a new access token and a new refresh token. Each refresh token works once; reusing one revokes every token from the same login."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "New tokens issued",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = LoginResponse.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Refresh token unknown, expired, revoked or already used",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = ErrorResponse.class)
+            )
+        )
+    })
+    public LoginResponse refresh(@RequestBody RefreshRequest request) {
+        RefreshTokenService.Issued issued = refreshTokenService.rotate(requireRefreshToken(request));
+        return tokens(issued.username(), issued.role(), issued.token());
+    }
+
+    @PostMapping("/logout")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @Operation(
+        summary = "Logout",
+        description = "Revokes the refresh token and every token rotated from the same login. Access tokens already issued stay valid until they expire."
+    )
+    public void logout(@RequestBody RefreshRequest request) {
+        refreshTokenService.revoke(requireRefreshToken(request));
+    }
+
+    private LoginResponse tokens(String username, String role, String refreshToken) {
+        String token = jwtUtil.generateToken(username, role);
+        return new LoginResponse(token, refreshToken, jwtUtil.getExpirationMs() / 1000);
+    }
 
-        return Map.of("token", token);
+    private static String requireRefreshToken(RefreshRequest request) {
+        if (request == null || request.getRefreshToken() == null || request.getRefreshToken().isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "refreshToken is required");
+        }
+        return request.getRefreshToken();
     }
 }
 
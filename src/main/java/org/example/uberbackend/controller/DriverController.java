@@ -0,0 +1,78 @@
+package org.example.uberbackend.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.example.uberbackend.dto.NearbyDriver;
+import org.example.uberbackend.model.GeoLocation;
+import org.example.uberbackend.service.DriverLocationIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/drivers")
+@Tag(name = "Driver Location APIs", description = "Online driver positions and nearest-driver lookup (in-memory grid)")
+public class DriverController {
+
+    // Bounds the number of grid cells one lookup can scan
+    private static final double MAX_RADIUS_KM = 50;
+
+    @Autowired
+    private DriverLocationIndex driverLocationIndex;
+
+    @PutMapping("/location")
+    @Operation(
+        summary = "Report driver location (Driver only)",
+        description = "Marks the driver online at the given coordinates. Drivers that stop reporting are dropped after drivers.location.ttl-seconds."
+    )
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void updateLocation(
+        @Parameter(hidden = true) @AuthenticationPrincipal UserDetails driver,
+        @RequestBody GeoLocation location
+    ) {
+        requireDriver(driver);
+        location.validate();
+        driverLocationIndex.update(driver.getUsername(), location.getLat(), location.getLng());
+    }
+
+    @DeleteMapping("/location")
+    @Operation(summary = "Go offline (Driver only)", description = "Removes the driver from the nearest-driver index.")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void goOffline(@Parameter(hidden = true) @AuthenticationPrincipal UserDetails driver) {
+        requireDriver(driver);
+        driverLocationIndex.remove(driver.getUsername());
+    }
+
+    @GetMapping("/nearest")
+    @Operation(
+        summary = "Find nearest online drivers",
+        description = "k nearest online drivers within radiusKm of the point, nearest first. Answered from memory without touching MongoDB."
+    )
+    public List<NearbyDriver> nearest(
+        @Parameter(description = "Latitude") @RequestParam double lat,
+        @Parameter(description = "Longitude") @RequestParam double lng,
+        @Parameter(description = "Number of drivers") @RequestParam(defaultValue = "5") int k,
+        @Parameter(description = "Search radius in km (at most 50)") @RequestParam(defaultValue = "10") double radiusKm
+    ) {
+        new GeoLocation(lat, lng).validate();
+        if (k < 1 || k > 100 || radiusKm <= 0 || radiusKm > MAX_RADIUS_KM) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "k must be 1-100 and radiusKm between 0 and " + MAX_RADIUS_KM);
+        }
+        return driverLocationIndex.nearest(lat, lng, k, radiusKm);
+    }
+
+    private static void requireDriver(UserDetails user) {
+        boolean isDriver = user.getAuthorities().stream()
+                .anyMatch(auth -> auth.getAuthority().equals("ROLE_DRIVER"));
+
+        if (!isDriver) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only drivers can report a location");
+        }
+    }
+}
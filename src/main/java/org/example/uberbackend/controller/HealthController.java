@@ -1,7 +1,10 @@
 package org.example.uberbackend.controller;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.example.uberbackend.service.RideWriteBuffer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.http.ResponseEntity;
@@ -10,7 +13,9 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 @RestController
 @RequestMapping("/api/health")
@@ -20,6 +25,12 @@ public class HealthController {
     @Autowired
     private MongoTemplate mongoTemplate;
 
+    @Autowired
+    private Map<String, Cache<?, ?>> caches;
+
+    @Autowired
+    private RideWriteBuffer rideWriteBuffer;
+
     // Acha hua ye implement kiya, it helpmed me A LOT :)
 
     // Health check 1: Check if backend is running
@@ -60,5 +71,35 @@ public class HealthController {
             return ResponseEntity.status(500).body(response);
         }
     }
-}
 
+    // Health check 3: In-memory cache statistics
+    @GetMapping("/caches")
+    @Operation(
+        summary = "Cache statistics",
+        description = "Hit/miss counters, hit rate, evictions and size for each in-memory cache"
+    )
+    public ResponseEntity<Map<String, Map<String, Object>>> cacheStats() {
+        Map<String, Map<String, Object>> response = new TreeMap<>();
+        caches.forEach((name, cache) -> {
+            CacheStats stats = cache.stats();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("hits", stats.hitCount());
+            entry.put("misses", stats.missCount());
+            entry.put("hitRate", stats.hitRate());
+            entry.put("evictions", stats.evictionCount());
+            entry.put("size", cache.estimatedSize());
+            response.put(name, entry);
+        });
+        return ResponseEntity.ok(response);
+    }
+
+    // Health check 4: Group-commit write buffer metrics
+    @GetMapping("/write-buffer")
+    @Operation(
+        summary = "Ride write buffer statistics",
+        description = "Batch sizes and queue wait times of the group-commit buffer for ride creation"
+    )
+    public ResponseEntity<Map<String, Object>> writeBufferStats() {
+        return ResponseEntity.ok(rideWriteBuffer.getStats());
+    }
+}
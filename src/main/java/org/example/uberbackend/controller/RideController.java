@@ -2,18 +2,35 @@ package org.example.uberbackend.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.example.uberbackend.config.RideVersioned;
+import org.example.uberbackend.dto.BatchItemResult;
+import org.example.uberbackend.dto.RidePage;
+import org.example.uberbackend.model.GeoLocation;
 import org.example.uberbackend.model.Ride;
+import org.example.uberbackend.service.RideEventBus;
 import org.example.uberbackend.service.RideService;
+import org.example.uberbackend.service.RideWriteBuffer;
+import org.example.uberbackend.util.NdjsonWriter;
+import org.example.uberbackend.util.RideFields;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/rides")
@@ -23,22 +40,53 @@ public class RideController {
     @Autowired
     private RideService rideService;
 
+    @Autowired
+    private NdjsonWriter ndjsonWriter;
+
+    @Autowired
+    private RideEventBus rideEventBus;
+
     @PostMapping
     @Operation(
         summary = "Create new ride",
-        description = "Passenger creates a ride request with pickup/drop locations, fare, and distance. Status set to REQUESTED."
+        description = "Passenger creates a ride request with pickup/drop locations, fare, and distance. Status set to REQUESTED. Returns 202 with the ride's id when group commit is on and the write hasn't finished in time: the ride may still be stored, so check it with /by-ids instead of creating it again."
     )
-    public Ride createRide(
+    public ResponseEntity<Ride> createRide(
         @Parameter(hidden = true) @AuthenticationPrincipal UserDetails user,
         @RequestBody Ride ride
     ) {
-        return rideService.createRide(user.getUsername(), ride);
+        try {
+            return ResponseEntity.ok(rideService.createRide(user.getUsername(), ride));
+        } catch (RideWriteBuffer.StillPendingException e) {
+            return ResponseEntity.accepted().body(e.getRide());
+        }
+    }
+
+    @PostMapping("/batch")
+    @Operation(
+        summary = "Create rides in bulk",
+        description = "Creates up to 1000 rides for the passenger with one unordered bulk insert. Returns one result per item in request order; failed items don't stop the rest."
+    )
+    public List<BatchItemResult> createRides(
+        @Parameter(hidden = true) @AuthenticationPrincipal UserDetails user,
+        @RequestBody List<Ride> rides
+    ) {
+        return rideService.createRides(user.getUsername(), rides);
+    }
+
+    @PostMapping("/by-ids")
+    @Operation(
+        summary = "Get rides by IDs",
+        description = "Fetches up to 1000 rides with a single $in query. Results follow the request order; unknown IDs are skipped."
+    )
+    public List<Ride> getRidesByIds(@RequestBody List<String> ids) {
+        return rideService.getRidesByIds(ids);
     }
 
     @PostMapping("/accept/{id}")
     @Operation(
         summary = "Accept ride (Driver only)",
-        description = "Driver accepts a REQUESTED ride. Changes status to ACCEPTED and assigns driver. Requires ROLE_DRIVER."
+        description = "Driver accepts a REQUESTED ride. Changes status to ACCEPTED and assigns driver. Requires ROLE_DRIVER. Returns 409 if the ride was already accepted by another driver."
     )
     public Ride acceptRide(
         @Parameter(hidden = true) @AuthenticationPrincipal UserDetails driver,
@@ -57,7 +105,7 @@ public class RideController {
     @PostMapping("/complete/{id}")
     @Operation(
         summary = "Complete ride",
-        description = "Marks ride as COMPLETED. Only assigned driver or passenger can complete. Changes status from ACCEPTED to COMPLETED."
+        description = "Marks ride as COMPLETED. Only assigned driver or passenger can complete. Changes status from ACCEPTED to COMPLETED. Returns 409 if the ride is not ACCEPTED."
     )
     public Ride completeRide(
         @Parameter(hidden = true) @AuthenticationPrincipal UserDetails user,
@@ -67,12 +115,31 @@ public class RideController {
     }
 
     @GetMapping
+    @RideVersioned
     @Operation(
         summary = "Get all rides",
         description = "Retrieves all rides from database regardless of status or user"
     )
-    public List<Ride> getAllRides() {
-        return rideService.getAllRides();
+    @ApiResponse(
+        responseCode = "200",
+        description = "Matching rides; with fields set, each ride only has the requested properties",
+        content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = Ride.class)))
+    )
+    public List<?> getAllRides(
+        @Parameter(description = "Comma-separated fields to return, e.g. id,status,fare (optional, default: all)") @RequestParam(required = false) String fields
+    ) {
+        RideFields selected = RideFields.parse(fields);
+        return RideFields.render(rideService.getAllRides(selected), selected);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @RideVersioned
+    @Operation(
+        summary = "Stream all rides (NDJSON)",
+        description = "Same as Get all rides, but streams one ride per line from a MongoDB cursor. Opt in with Accept: application/x-ndjson."
+    )
+    public ResponseEntity<StreamingResponseBody> streamAllRides() {
+        return ndjson(rideService.streamAllRides());
     }
 
     // ===== ADVANCED QUERY OPERATIONS =====
@@ -80,131 +147,360 @@ public class RideController {
 
     // API 1: Search by keyword
     @GetMapping("/search")
+    @RideVersioned
     @Operation(
         summary = "Search rides by keyword",
-        description = "Search rides by keyword in pickup OR drop location (case-insensitive regex). Uses MongoTemplate OR query."
+        description = "Search rides by keyword in pickup OR drop location (case-insensitive, matches word prefixes). Uses the indexed locationTokens field."
     )
-    public List<Ride> searchRides(
-        @Parameter(description = "Search keyword (e.g., 'Airport', 'Downtown')") @RequestParam String text
+    @ApiResponse(
+        responseCode = "200",
+        description = "Matching rides; with fields set, each ride only has the requested properties",
+        content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = Ride.class)))
+    )
+    public List<?> searchRides(
+        @Parameter(description = "Search keyword (e.g., 'Airport', 'Downtown')") @RequestParam String text,
+        @Parameter(description = "Comma-separated fields to return, e.g. id,status,fare (optional, default: all)") @RequestParam(required = false) String fields
     ) {
-        return rideService.searchRides(text);
+        RideFields selected = RideFields.parse(fields);
+        return RideFields.render(rideService.searchRides(text, selected), selected);
+    }
+
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @RideVersioned
+    @Operation(
+        summary = "Search rides by keyword (NDJSON stream)",
+        description = "Same as Search rides by keyword, but streams one ride per line from a MongoDB cursor. Opt in with Accept: application/x-ndjson."
+    )
+    public ResponseEntity<StreamingResponseBody> streamSearchRides(@RequestParam String text) {
+        return ndjson(rideService.streamSearchRides(text));
     }
 
     // API 2: Filter by distance
     @GetMapping("/filter-distance")
+    @RideVersioned
     @Operation(
         summary = "Filter rides by distance range",
         description = "Filter rides where distance is between min and max kilometers. Validates min <= max and no negative values."
     )
-    public List<Ride> filterByDistance(
+    @ApiResponse(
+        responseCode = "200",
+        description = "Matching rides; with fields set, each ride only has the requested properties",
+        content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = Ride.class)))
+    )
+    public List<?> filterByDistance(
         @Parameter(description = "Minimum distance in km") @RequestParam Double min,
-        @Parameter(description = "Maximum distance in km") @RequestParam Double max
+        @Parameter(description = "Maximum distance in km") @RequestParam Double max,
+        @Parameter(description = "Comma-separated fields to return, e.g. id,status,fare (optional, default: all)") @RequestParam(required = false) String fields
+    ) {
+        RideFields selected = RideFields.parse(fields);
+        return RideFields.render(rideService.filterByDistance(min, max, selected), selected);
+    }
+
+    @GetMapping(value = "/filter-distance", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @RideVersioned
+    @Operation(
+        summary = "Filter rides by distance range (NDJSON stream)",
+        description = "Same as Filter rides by distance range, but streams one ride per line from a MongoDB cursor. Opt in with Accept: application/x-ndjson."
+    )
+    public ResponseEntity<StreamingResponseBody> streamFilterByDistance(
+        @RequestParam Double min,
+        @RequestParam Double max
     ) {
-        return rideService.filterByDistance(min, max);
+        return ndjson(rideService.streamFilterByDistance(min, max));
     }
 
     // API 3: Filter by date range
     @GetMapping("/filter-date-range")
+    @RideVersioned
     @Operation(
         summary = "Filter rides by date range",
         description = "Get rides created between start and end dates (inclusive). Uses LocalDate comparison."
     )
-    public List<Ride> filterByDateRange(
+    @ApiResponse(
+        responseCode = "200",
+        description = "Matching rides; with fields set, each ride only has the requested properties",
+        content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = Ride.class)))
+    )
+    public List<?> filterByDateRange(
         @Parameter(description = "Start date (YYYY-MM-DD)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
-        @Parameter(description = "End date (YYYY-MM-DD)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end
+        @Parameter(description = "End date (YYYY-MM-DD)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+        @Parameter(description = "Comma-separated fields to return, e.g. id,status,fare (optional, default: all)") @RequestParam(required = false) String fields
+    ) {
+        RideFields selected = RideFields.parse(fields);
+        return RideFields.render(rideService.filterByDateRange(start, end, selected), selected);
+    }
+
+    @GetMapping(value = "/filter-date-range", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @RideVersioned
+    @Operation(
+        summary = "Filter rides by date range (NDJSON stream)",
+        description = "Same as Filter rides by date range, but streams one ride per line from a MongoDB cursor. Opt in with Accept: application/x-ndjson."
+    )
+    public ResponseEntity<StreamingResponseBody> streamFilterByDateRange(
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end
     ) {
-        return rideService.filterByDateRange(start, end);
+        return ndjson(rideService.streamFilterByDateRange(start, end));
     }
 
     // API 4: Sort by fare
     @GetMapping("/sort")
+    @RideVersioned
     @Operation(
         summary = "Sort rides by fare",
         description = "Sort all rides by fare amount. Supports ascending (cheapest first) or descending (most expensive first)."
     )
-    public List<Ride> sortByFare(
-        @Parameter(description = "Sort order: 'asc' or 'desc'") @RequestParam(defaultValue = "asc") String order
+    @ApiResponse(
+        responseCode = "200",
+        description = "Matching rides; with fields set, each ride only has the requested properties",
+        content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = Ride.class)))
+    )
+    public List<?> sortByFare(
+        @Parameter(description = "Sort order: 'asc' or 'desc'") @RequestParam(defaultValue = "asc") String order,
+        @Parameter(description = "Comma-separated fields to return, e.g. id,status,fare (optional, default: all)") @RequestParam(required = false) String fields
     ) {
-        return rideService.sortByFare(order);
+        RideFields selected = RideFields.parse(fields);
+        return RideFields.render(rideService.sortByFare(order, selected), selected);
+    }
+
+    @GetMapping(value = "/sort", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @RideVersioned
+    @Operation(
+        summary = "Sort rides by fare (NDJSON stream)",
+        description = "Same as Sort rides by fare, but streams one ride per line from a MongoDB cursor. Opt in with Accept: application/x-ndjson."
+    )
+    public ResponseEntity<StreamingResponseBody> streamSortByFare(@RequestParam(defaultValue = "asc") String order) {
+        return ndjson(rideService.streamSortByFare(order));
     }
 
     // API 5: Get user's rides
     @GetMapping("/user/{userId}")
+    @RideVersioned(user = "userId")
     @Operation(
         summary = "Get user's rides",
         description = "Get all rides for a specific passenger. Uses equality query on passengerUsername."
     )
-    public List<Ride> getRidesByUser(
-        @Parameter(description = "Passenger username") @PathVariable String userId
+    @ApiResponse(
+        responseCode = "200",
+        description = "Matching rides; with fields set, each ride only has the requested properties",
+        content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = Ride.class)))
+    )
+    public List<?> getRidesByUser(
+        @Parameter(description = "Passenger username") @PathVariable String userId,
+        @Parameter(description = "Comma-separated fields to return, e.g. id,status,fare (optional, default: all)") @RequestParam(required = false) String fields
     ) {
-        return rideService.getRidesByUser(userId);
+        RideFields selected = RideFields.parse(fields);
+        return RideFields.render(rideService.getRidesByUser(userId, selected), selected);
     }
 
     // API 6: Get user's rides by status
     @GetMapping("/user/{userId}/status/{status}")
+    @RideVersioned(user = "userId")
     @Operation(
         summary = "Get user's rides by status",
         description = "Get rides for a passenger filtered by status. Combines user equality AND status equality."
     )
-    public List<Ride> getRidesByUserAndStatus(
+    @ApiResponse(
+        responseCode = "200",
+        description = "Matching rides; with fields set, each ride only has the requested properties",
+        content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = Ride.class)))
+    )
+    public List<?> getRidesByUserAndStatus(
         @Parameter(description = "Passenger username") @PathVariable String userId,
-        @Parameter(description = "Ride status (REQUESTED, ACCEPTED, COMPLETED)") @PathVariable String status
+        @Parameter(description = "Ride status (REQUESTED, ACCEPTED, COMPLETED)") @PathVariable String status,
+        @Parameter(description = "Comma-separated fields to return, e.g. id,status,fare (optional, default: all)") @RequestParam(required = false) String fields
     ) {
-        return rideService.getRidesByUserAndStatus(userId, status);
+        RideFields selected = RideFields.parse(fields);
+        return RideFields.render(rideService.getRidesByUserAndStatus(userId, status, selected), selected);
     }
 
     // API 7: Driver's active rides
     @GetMapping("/driver/{driverId}/active-rides")
+    @RideVersioned(user = "driverId")
     @Operation(
         summary = "Get driver's active rides",
         description = "Get driver's rides with status REQUESTED or ACCEPTED (excluding COMPLETED). Uses IN query for multiple statuses."
     )
-    public List<Ride> getDriverActiveRides(
-        @Parameter(description = "Driver username") @PathVariable String driverId
+    @ApiResponse(
+        responseCode = "200",
+        description = "Matching rides; with fields set, each ride only has the requested properties",
+        content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = Ride.class)))
+    )
+    public List<?> getDriverActiveRides(
+        @Parameter(description = "Driver username") @PathVariable String driverId,
+        @Parameter(description = "Comma-separated fields to return, e.g. id,status,fare (optional, default: all)") @RequestParam(required = false) String fields
     ) {
-        return rideService.getDriverActiveRides(driverId);
+        RideFields selected = RideFields.parse(fields);
+        return RideFields.render(rideService.getDriverActiveRides(driverId, selected), selected);
     }
 
     // API 8: Filter by status + keyword
     @GetMapping("/filter-status")
+    @RideVersioned
     @Operation(
         summary = "Filter by status and keyword",
         description = "Complex query combining status equality AND keyword search (pickup OR drop). Demonstrates AND + OR query combination."
     )
-    public List<Ride> filterByStatusAndKeyword(
+    @ApiResponse(
+        responseCode = "200",
+        description = "Matching rides; with fields set, each ride only has the requested properties",
+        content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = Ride.class)))
+    )
+    public List<?> filterByStatusAndKeyword(
         @Parameter(description = "Ride status") @RequestParam String status,
-        @Parameter(description = "Search keyword") @RequestParam String search
+        @Parameter(description = "Search keyword") @RequestParam String search,
+        @Parameter(description = "Comma-separated fields to return, e.g. id,status,fare (optional, default: all)") @RequestParam(required = false) String fields
     ) {
-        return rideService.filterByStatusAndKeyword(status, search);
+        RideFields selected = RideFields.parse(fields);
+        return RideFields.render(rideService.filterByStatusAndKeyword(status, search, selected), selected);
     }
 
     // API 9: Advanced search with pagination
     @GetMapping("/advanced-search")
+    @RideVersioned
     @Operation(
         summary = "Advanced search with pagination",
         description = "Full-featured search with optional keyword, status filter, sorting, and pagination. All parameters optional."
     )
-    public List<Ride> advancedSearch(
+    @ApiResponse(
+        responseCode = "200",
+        description = "Matching rides; with fields set, each ride only has the requested properties",
+        content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = Ride.class)))
+    )
+    public List<?> advancedSearch(
         @Parameter(description = "Search keyword (optional)") @RequestParam(required = false) String search,
         @Parameter(description = "Filter by status (optional)") @RequestParam(required = false) String status,
         @Parameter(description = "Sort field (optional, default: createdAt)") @RequestParam(required = false, defaultValue = "createdAt") String sort,
         @Parameter(description = "Sort order (optional, default: asc)") @RequestParam(required = false, defaultValue = "asc") String order,
         @Parameter(description = "Page number (0-indexed)") @RequestParam(defaultValue = "0") int page,
-        @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size
+        @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+        @Parameter(description = "Comma-separated fields to return, e.g. id,status,fare (optional, default: all)") @RequestParam(required = false) String fields
     ) {
-        return rideService.advancedSearch(search, status, sort, order, page, size);
+        RideFields selected = RideFields.parse(fields);
+        return RideFields.render(rideService.advancedSearch(search, status, sort, order, page, size, selected), selected);
+    }
+
+    // API 9b: Advanced search with cursor pagination
+    @GetMapping(value = "/advanced-search", params = "cursor")
+    @RideVersioned
+    @Operation(
+        summary = "Advanced search with cursor pagination",
+        description = "Same filters as advanced search, but pages by keyset instead of skip/limit. Pass an empty cursor for the first page, then the returned nextCursor. Sort must be createdAt, createdDate, fare or distanceKm. Page size is capped at 100."
+    )
+    public RidePage advancedSearchPage(
+        @Parameter(description = "Search keyword (optional)") @RequestParam(required = false) String search,
+        @Parameter(description = "Filter by status (optional)") @RequestParam(required = false) String status,
+        @Parameter(description = "Sort field (optional, default: createdAt)") @RequestParam(required = false, defaultValue = "createdAt") String sort,
+        @Parameter(description = "Sort order (optional, default: asc)") @RequestParam(required = false, defaultValue = "asc") String order,
+        @Parameter(description = "Continuation token from the previous page (empty for the first page)") @RequestParam String cursor,
+        @Parameter(description = "Page size (1-100)") @RequestParam(defaultValue = "10") int size,
+        @Parameter(description = "Comma-separated fields to return, e.g. id,status,fare (optional, default: all)") @RequestParam(required = false) String fields
+    ) {
+        return rideService.advancedSearchPage(search, status, sort, order, cursor, Math.min(Math.max(size, 1), 100),
+                RideFields.parse(fields));
     }
 
     // API 10: Rides by specific date
     @GetMapping("/date/{date}")
+    @RideVersioned
     @Operation(
         summary = "Get rides by specific date",
         description = "Get all rides created on a specific date. Uses LocalDate equality."
     )
-    public List<Ride> getRidesByDate(
-        @Parameter(description = "Date (YYYY-MM-DD)") @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date
+    @ApiResponse(
+        responseCode = "200",
+        description = "Matching rides; with fields set, each ride only has the requested properties",
+        content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = Ride.class)))
+    )
+    public List<?> getRidesByDate(
+        @Parameter(description = "Date (YYYY-MM-DD)") @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+        @Parameter(description = "Comma-separated fields to return, e.g. id,status,fare (optional, default: all)") @RequestParam(required = false) String fields
     ) {
-        return rideService.getRidesByDate(date);
+        RideFields selected = RideFields.parse(fields);
+        return RideFields.render(rideService.getRidesByDate(date, selected), selected);
     }
-}
 
+    // API 11: Nearby rides
+    @GetMapping("/nearby")
+    @RideVersioned
+    @Operation(
+        summary = "Find rides near a location",
+        description = "Rides whose pickup coordinates are within radiusKm of the given point, nearest first. Uses the 2dsphere index on pickupPoint. Defaults to REQUESTED rides."
+    )
+    @ApiResponse(
+        responseCode = "200",
+        description = "Matching rides; with fields set, each ride only has the requested properties",
+        content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = Ride.class)))
+    )
+    public List<?> findNearby(
+        @Parameter(description = "Latitude") @RequestParam double lat,
+        @Parameter(description = "Longitude") @RequestParam double lng,
+        @Parameter(description = "Search radius in km") @RequestParam(defaultValue = "5") double radiusKm,
+        @Parameter(description = "Ride status (empty for any)") @RequestParam(defaultValue = "REQUESTED") String status,
+        @Parameter(description = "Maximum number of rides") @RequestParam(defaultValue = "20") int limit,
+        @Parameter(description = "Comma-separated fields to return, e.g. id,status,fare (optional, default: all)") @RequestParam(required = false) String fields
+    ) {
+        RideFields selected = RideFields.parse(fields);
+        int max = Math.min(Math.max(limit, 1), 100);
+        return RideFields.render(rideService.findNearby(new GeoLocation(lat, lng), radiusKm, status, max, selected), selected);
+    }
+
+    // API 12: Open rides for drivers
+    @GetMapping("/open")
+    @Operation(
+        summary = "Get oldest open rides",
+        description = "Oldest REQUESTED rides, served from the in-memory dispatch queue without a database query. Pass lat/lng to only see rides in that pickup area."
+    )
+    @ApiResponse(
+        responseCode = "200",
+        description = "Matching rides; with fields set, each ride only has the requested properties",
+        content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = Ride.class)))
+    )
+    public List<?> getOpenRides(
+        @Parameter(description = "Maximum number of rides") @RequestParam(defaultValue = "20") int limit,
+        @Parameter(description = "Latitude of the driver's area (optional)") @RequestParam(required = false) Double lat,
+        @Parameter(description = "Longitude of the driver's area (optional)") @RequestParam(required = false) Double lng,
+        @Parameter(description = "Comma-separated fields to return, e.g. id,status,fare (optional, default: all)") @RequestParam(required = false) String fields
+    ) {
+        // Reject a bad fields list before touching the queue
+        RideFields selected = RideFields.parse(fields);
+        GeoLocation area = null;
+        if (lat != null && lng != null) {
+            area = new GeoLocation(lat, lng).validate();
+        }
+        return RideFields.render(rideService.getOpenRides(Math.min(Math.max(limit, 1), 100), area), selected);
+    }
+
+    // API 13: Push feed of ride lifecycle changes
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+        summary = "Subscribe to ride events (SSE)",
+        description = "Server-Sent Events stream of CREATED/ACCEPTED/COMPLETED events for the caller's own rides. Drivers can pass openRides=true to also receive every new ride and learn when it is taken. Slow clients are disconnected and should reconnect and re-read their rides."
+    )
+    public SseEmitter rideEvents(
+        @Parameter(hidden = true) @AuthenticationPrincipal UserDetails user,
+        @Parameter(description = "Also stream new and newly-taken rides (drivers only)") @RequestParam(defaultValue = "false") boolean openRides
+    ) {
+        if (openRides) {
+            boolean isDriver = user.getAuthorities().stream()
+                    .anyMatch(auth -> auth.getAuthority().equals("ROLE_DRIVER"));
+            if (!isDriver) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only drivers can watch open rides");
+            }
+        }
+        return rideEventBus.subscribe(user.getUsername(), openRides);
+    }
+
+    // The cursor is opened on the request thread so query errors still map to a normal
+    // error response; it is drained and closed on the async thread that writes the body.
+    private ResponseEntity<StreamingResponseBody> ndjson(Stream<Ride> rides) {
+        StreamingResponseBody body = out -> {
+            try (rides) {
+                ndjsonWriter.write(rides, out);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+}
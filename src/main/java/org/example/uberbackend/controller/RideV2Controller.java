@@ -0,0 +1,139 @@
+package org.example.uberbackend.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.example.uberbackend.model.Ride;
+import org.example.uberbackend.service.ReactiveRideService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import java.time.LocalDate;
+
+// Streaming mirror of the RideController query endpoints on the reactive driver.
+// Responses are NDJSON or SSE; the next document is only requested once the previous
+// one has been written, so a slow client holds a cursor, not a Tomcat request thread.
+// This still runs on Spring MVC, so each write blocks a virtual thread rather than
+// being truly non-blocking; see ReactiveRideService.find.
+@RestController
+@RequestMapping(value = "/api/v2/rides", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+@Tag(name = "Streaming Ride APIs (v2)", description = "Non-blocking, backpressured versions of the ride query APIs")
+public class RideV2Controller {
+
+    @Autowired
+    private ReactiveRideService reactiveRideService;
+
+    @GetMapping
+    @Operation(
+        summary = "Stream all rides",
+        description = "Same rows as GET /api/rides, streamed one ride per element from a MongoDB cursor in batches of 100."
+    )
+    public Flux<Ride> getAllRides() {
+        return reactiveRideService.getAllRides();
+    }
+
+    @GetMapping("/search")
+    @Operation(
+        summary = "Stream rides matching a keyword in pickup OR drop location",
+        description = "Same query as GET /api/rides/search, streamed as NDJSON or SSE."
+    )
+    public Flux<Ride> searchRides(
+        @Parameter(description = "Search keyword (e.g., 'Airport', 'Downtown')") @RequestParam String text
+    ) {
+        return reactiveRideService.searchRides(text);
+    }
+
+    @GetMapping("/filter-distance")
+    @Operation(
+        summary = "Stream rides within a distance range",
+        description = "Same query as GET /api/rides/filter-distance, streamed as NDJSON or SSE."
+    )
+    public Flux<Ride> filterByDistance(
+        @Parameter(description = "Minimum distance in km") @RequestParam Double min,
+        @Parameter(description = "Maximum distance in km") @RequestParam Double max
+    ) {
+        return reactiveRideService.filterByDistance(min, max);
+    }
+
+    @GetMapping("/filter-date-range")
+    @Operation(
+        summary = "Stream rides created between two dates (inclusive)",
+        description = "Same query as GET /api/rides/filter-date-range, streamed as NDJSON or SSE."
+    )
+    public Flux<Ride> filterByDateRange(
+        @Parameter(description = "Start date (YYYY-MM-DD)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+        @Parameter(description = "End date (YYYY-MM-DD)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end
+    ) {
+        return reactiveRideService.filterByDateRange(start, end);
+    }
+
+    @GetMapping("/sort")
+    @Operation(
+        summary = "Stream rides sorted by fare",
+        description = "Same query as GET /api/rides/sort, streamed in fare order as NDJSON or SSE."
+    )
+    public Flux<Ride> sortByFare(
+        @Parameter(description = "Sort order: 'asc' or 'desc'") @RequestParam(defaultValue = "asc") String order
+    ) {
+        return reactiveRideService.sortByFare(order);
+    }
+
+    @GetMapping("/user/{userId}")
+    @Operation(
+        summary = "Stream a passenger's rides",
+        description = "Same query as GET /api/rides/user/{userId}, streamed as NDJSON or SSE."
+    )
+    public Flux<Ride> getRidesByUser(
+        @Parameter(description = "Passenger username") @PathVariable String userId
+    ) {
+        return reactiveRideService.getRidesByUser(userId);
+    }
+
+    @GetMapping("/user/{userId}/status/{status}")
+    @Operation(
+        summary = "Stream a passenger's rides with a given status",
+        description = "Same query as GET /api/rides/user/{userId}/status/{status}, streamed as NDJSON or SSE."
+    )
+    public Flux<Ride> getRidesByUserAndStatus(
+        @Parameter(description = "Passenger username") @PathVariable String userId,
+        @Parameter(description = "Ride status (REQUESTED, ACCEPTED, COMPLETED)") @PathVariable String status
+    ) {
+        return reactiveRideService.getRidesByUserAndStatus(userId, status);
+    }
+
+    @GetMapping("/driver/{driverId}/active-rides")
+    @Operation(
+        summary = "Stream a driver's REQUESTED and ACCEPTED rides",
+        description = "Same query as GET /api/rides/driver/{driverId}/active-rides, streamed as NDJSON or SSE."
+    )
+    public Flux<Ride> getDriverActiveRides(
+        @Parameter(description = "Driver username") @PathVariable String driverId
+    ) {
+        return reactiveRideService.getDriverActiveRides(driverId);
+    }
+
+    @GetMapping("/filter-status")
+    @Operation(
+        summary = "Stream rides by status and keyword",
+        description = "Same query as GET /api/rides/filter-status, streamed as NDJSON or SSE."
+    )
+    public Flux<Ride> filterByStatusAndKeyword(
+        @Parameter(description = "Ride status") @RequestParam String status,
+        @Parameter(description = "Search keyword") @RequestParam String search
+    ) {
+        return reactiveRideService.filterByStatusAndKeyword(status, search);
+    }
+
+    @GetMapping("/date/{date}")
+    @Operation(
+        summary = "Stream rides created on a specific date",
+        description = "Same query as GET /api/rides/date/{date}, streamed as NDJSON or SSE."
+    )
+    public Flux<Ride> getRidesByDate(
+        @Parameter(description = "Date (YYYY-MM-DD)") @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date
+    ) {
+        return reactiveRideService.getRidesByDate(date);
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.uberbackend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Outcome of one item in a batch request")
+public class BatchItemResult {
+
+    @Schema(description = "Position of the item in the request", example = "0")
+    private int index;
+
+    @Schema(description = "CREATED or FAILED", example = "CREATED")
+    private String status;
+
+    @Schema(description = "Ride ID when created", example = "507f1f77bcf86cd799439011")
+    private String id;
+
+    @Schema(description = "Why the item failed", example = "E11000 duplicate key error")
+    private String error;
+
+    public static BatchItemResult created(int index, String id) {
+        return new BatchItemResult(index, "CREATED", id, null);
+    }
+
+    public static BatchItemResult failed(int index, String error) {
+        return new BatchItemResult(index, "FAILED", null, error);
+    }
+}
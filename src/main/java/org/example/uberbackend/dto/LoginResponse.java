@@ -8,10 +8,16 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Schema(description = "Login response with JWT token")
+@Schema(description = "Login response with JWT access token and refresh token")
 public class LoginResponse {
 
     @Schema(description = "JWT authentication token", example = "eyJhbGciOiJIUzI1NiJ9.eyJzdWIiOiJwYXNzZW5nZXIxIiwicm9sZSI6IlJPTEVfVVNFUiIsImlhdCI6MTYzOTU2...")
     private String token;
+
+    @Schema(description = "Single-use refresh token for POST /api/auth/refresh", example = "q3Zb0cF1m9Xo2yK7t4R8uVwP5sLjN6hE0aGdIeTzYcM")
+    private String refreshToken;
+
+    @Schema(description = "Access token lifetime in seconds", example = "900")
+    private long expiresIn;
 }
 
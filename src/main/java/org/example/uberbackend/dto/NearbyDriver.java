@@ -0,0 +1,25 @@
+package org.example.uberbackend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "An online driver and their distance from the query point")
+public class NearbyDriver {
+
+    @Schema(description = "Driver username", example = "driver1")
+    private String username;
+
+    @Schema(description = "Last reported latitude", example = "40.7580")
+    private double lat;
+
+    @Schema(description = "Last reported longitude", example = "-73.9855")
+    private double lng;
+
+    @Schema(description = "Great-circle distance in km", example = "0.84")
+    private double distanceKm;
+}
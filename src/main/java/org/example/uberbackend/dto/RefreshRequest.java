@@ -0,0 +1,16 @@
+package org.example.uberbackend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Refresh token to redeem or revoke")
+public class RefreshRequest {
+
+    @Schema(description = "Refresh token returned by login or a previous refresh", example = "q3Zb0cF1m9Xo2yK7t4R8uVwP5sLjN6hE0aGdIeTzYcM")
+    private String refreshToken;
+}
@@ -0,0 +1,23 @@
+package org.example.uberbackend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.uberbackend.model.Ride;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Several rides created at once, pushed over /api/rides/events as one CREATED_BATCH event")
+public class RideBatchEvent {
+
+    public static final String NAME = "CREATED_BATCH";
+
+    @Schema(description = "How many rides were created", example = "250")
+    private int count;
+
+    @Schema(description = "The first of them, at most rides.events.batch-preview; re-read the ride lists for the rest")
+    private List<Ride> rides;
+}
@@ -0,0 +1,22 @@
+package org.example.uberbackend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.uberbackend.model.Ride;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "A ride lifecycle change pushed over /api/rides/events")
+public class RideEvent {
+
+    public enum Type { CREATED, ACCEPTED, COMPLETED }
+
+    @Schema(description = "What happened; also the SSE event name", example = "ACCEPTED")
+    private Type type;
+
+    @Schema(description = "The ride after the change")
+    private Ride ride;
+}
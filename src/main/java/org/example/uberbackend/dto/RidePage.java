@@ -0,0 +1,20 @@
+package org.example.uberbackend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "One page of rides from cursor (keyset) pagination")
+public class RidePage {
+
+    @Schema(description = "Rides on this page; with fields set, each ride only has the requested properties")
+    private List<?> rides;
+
+    @Schema(description = "Opaque token for the next page; null when this is the last page", example = "eyJzIjoiY3JlYXRlZEF0Ii...")
+    private String nextCursor;
+}
@@ -0,0 +1,44 @@
+package org.example.uberbackend.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+// Latitude/longitude as clients send them; stored as a GeoJSON point (lng, lat)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeoLocation {
+
+    @Schema(description = "Latitude in degrees", example = "40.7580")
+    private Double lat;
+
+    @Schema(description = "Longitude in degrees", example = "-73.9855")
+    private Double lng;
+
+    public boolean isValid() {
+        return lat != null && lng != null && lat >= -90 && lat <= 90 && lng >= -180 && lng <= 180;
+    }
+
+    // Coordinates come from clients, so out-of-range values are a 400
+    public GeoLocation validate() {
+        if (!isValid()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Coordinates must have lat in [-90, 90] and lng in [-180, 180]");
+        }
+        return this;
+    }
+
+    public GeoJsonPoint toPoint() {
+        validate();
+        return new GeoJsonPoint(lng, lat);
+    }
+
+    public static GeoLocation from(GeoJsonPoint point) {
+        return point == null ? null : new GeoLocation(point.getY(), point.getX());
+    }
+}
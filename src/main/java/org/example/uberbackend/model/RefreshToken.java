@@ -0,0 +1,32 @@
+package org.example.uberbackend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.Instant;
+
+// A refresh token is only stored as its SHA-256 digest. Every rotation adds a new
+// token to the same family; MongoDB deletes tokens once expiresAt has passed.
+@Document(collection = "refresh_tokens")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshToken {
+
+    @Id
+    private String id;
+
+    private String username;
+
+    @Indexed(name = "family")
+    private String family;
+
+    @Indexed(name = "expiresAt_ttl", expireAfter = "0s")
+    private Instant expiresAt;
+
+    // Set when the token is redeemed; a second redemption means it was stolen
+    private Instant usedAt;
+}
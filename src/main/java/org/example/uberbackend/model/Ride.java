@@ -1,55 +1,139 @@
 package org.example.uberbackend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexed;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Document(collection = "rides")
+// One index per query shape in RideQueries; QueryPlanVerifier checks them at startup.
+// Sort keys carry _id as a tiebreaker so keyset pagination is an index range scan.
+// Index keys use the stored (short) field names below.
+@CompoundIndexes({
+    @CompoundIndex(name = "p_s", def = "{'p': 1, 's': 1}"),
+    @CompoundIndex(name = "d_s", def = "{'d': 1, 's': 1}"),
+    @CompoundIndex(name = "s_t", def = "{'s': 1, 't': 1, '_id': 1}"),
+    @CompoundIndex(name = "t", def = "{'t': 1, '_id': 1}"),
+    @CompoundIndex(name = "km", def = "{'km': 1, '_id': 1}"),
+    @CompoundIndex(name = "f", def = "{'f': 1, '_id': 1}")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Ride {
+
+    // Stored field names. Short keys are repeated in every document and index entry;
+    // the Java/JSON names stay descriptive and queries use those (Spring maps them).
+    public static final String PASSENGER = "p";
+    public static final String DRIVER = "d";
+    public static final String PICKUP_LOCATION = "pl";
+    public static final String DROP_LOCATION = "dl";
+    public static final String FARE = "f";
+    public static final String DISTANCE_KM = "km";
+    public static final String STATUS = "s";
+    public static final String CREATED_AT = "t";
+    public static final String LOCATION_TOKENS = "lt";
+    public static final String PICKUP_POINT = "pp";
+    public static final String DROP_POINT = "dp";
+
     @Id
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     @Schema(accessMode = Schema.AccessMode.READ_ONLY, description = "Ride ID (auto-generated)", example = "507f1f77bcf86cd799439011")
     private String id;
 
+    @Field(PASSENGER)
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     @Schema(accessMode = Schema.AccessMode.READ_ONLY, description = "Passenger username (set automatically from JWT)", example = "passenger1")
     private String passengerUsername;
 
+    @Field(DRIVER)
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     @Schema(accessMode = Schema.AccessMode.READ_ONLY, description = "Driver username (set when ride is accepted)", example = "driver1")
     private String driverUsername;
 
+    @Field(PICKUP_LOCATION)
     @Schema(description = "Pickup location", example = "Downtown Station")
     private String pickupLocation;
 
+    @Field(DROP_LOCATION)
     @Schema(description = "Drop-off location", example = "Airport Terminal 2")
     private String dropLocation;
 
+    @Field(FARE)
     @Schema(description = "Ride fare in currency units", example = "25.50")
     private Double fare;
 
+    @Field(DISTANCE_KM)
     @Schema(description = "Distance in kilometers", example = "15.3")
     private Double distanceKm;
 
+    @Field(STATUS)
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     @Schema(accessMode = Schema.AccessMode.READ_ONLY, description = "Ride status (REQUESTED, ACCEPTED, COMPLETED)", example = "REQUESTED")
-    private String status;
-
-    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
-    @Schema(accessMode = Schema.AccessMode.READ_ONLY, description = "Date when ride was created", example = "2025-12-12")
-    private LocalDate createdDate;
+    private RideStatus status;
 
+    @Field(CREATED_AT)
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     @Schema(accessMode = Schema.AccessMode.READ_ONLY, description = "Timestamp when ride was created", example = "2025-12-12T10:30:00")
     private LocalDateTime createdAt;
-}
 
+    // Optional GeoJSON coordinates, exposed to clients as pickupCoordinates/dropCoordinates
+    @Field(PICKUP_POINT)
+    @JsonIgnore
+    @GeoSpatialIndexed(type = GeoSpatialIndexType.GEO_2DSPHERE)
+    private GeoJsonPoint pickupPoint;
+
+    @Field(DROP_POINT)
+    @JsonIgnore
+    @GeoSpatialIndexed(type = GeoSpatialIndexType.GEO_2DSPHERE)
+    private GeoJsonPoint dropPoint;
+
+    // Lowercase word prefixes of pickup + drop location, maintained on write for indexed search
+    @Field(LOCATION_TOKENS)
+    @JsonIgnore
+    @Indexed
+    private List<String> locationTokens;
+
+    // Derived from createdAt rather than stored; date filters query createdAt by day range
+    @Transient
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY, description = "Date when ride was created", example = "2025-12-12")
+    public LocalDate getCreatedDate() {
+        return createdAt == null ? null : createdAt.toLocalDate();
+    }
+
+    @Transient
+    @Schema(description = "Pickup coordinates (optional, enables /api/rides/nearby)")
+    public GeoLocation getPickupCoordinates() {
+        return GeoLocation.from(pickupPoint);
+    }
+
+    public void setPickupCoordinates(GeoLocation location) {
+        this.pickupPoint = location == null ? null : location.toPoint();
+    }
+
+    @Transient
+    @Schema(description = "Drop-off coordinates (optional)")
+    public GeoLocation getDropCoordinates() {
+        return GeoLocation.from(dropPoint);
+    }
+
+    public void setDropCoordinates(GeoLocation location) {
+        this.dropPoint = location == null ? null : location.toPoint();
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.uberbackend.model;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Locale;
+
+// Ride lifecycle. Clients see the name; the rides collection stores the code
+// (see MongoConfig), which is a 1-byte int instead of a repeated string.
+public enum RideStatus {
+    REQUESTED(1),
+    ACCEPTED(2),
+    COMPLETED(3);
+
+    private final int code;
+
+    RideStatus(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public static RideStatus fromCode(int code) {
+        for (RideStatus status : values()) {
+            if (status.code == code) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown ride status code: " + code);
+    }
+
+    // Parses a status from a request parameter; null or empty means "no filter".
+    // An unknown name is answered with 400.
+    public static RideStatus from(String name) {
+        if (name == null || name.isEmpty()) {
+            return null;
+        }
+        RideStatus status = lookup(name);
+        if (status == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Unknown ride status '" + name + "', expected REQUESTED, ACCEPTED or COMPLETED");
+        }
+        return status;
+    }
+
+    // Case-insensitive, ignores surrounding whitespace; null when the name isn't a status
+    public static RideStatus lookup(String name) {
+        String normalized = name.trim().toUpperCase(Locale.ROOT);
+        for (RideStatus status : values()) {
+            if (status.name().equals(normalized)) {
+                return status;
+            }
+        }
+        return null;
+    }
+}
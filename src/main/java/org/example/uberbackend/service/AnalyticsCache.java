@@ -0,0 +1,59 @@
+package org.example.uberbackend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.example.uberbackend.util.CachedResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+// Cache in front of the global analytics queries, checked against the global ride
+// version. A result is reused while no ride has changed since it was computed; once
+// one has, it is recomputed on the next read, but no sooner than
+// analytics.cache.debounce-ms after the previous computation, so a steady stream of
+// writes costs one query per window instead of one per read. Concurrent misses on
+// the same key wait for a single computation. Results are dropped after
+// analytics.cache.ttl-seconds in any case.
+@Component
+public class AnalyticsCache {
+
+    public static final String RIDES_PER_DAY = "rides-per-day";
+    public static final String STATUS_SUMMARY = "status-summary";
+
+    @Autowired
+    private Cache<String, CachedResult<?>> analyticsResultCache;
+
+    @Autowired
+    private RideVersionService rideVersionService;
+
+    @Value("${analytics.cache.debounce-ms:1000}")
+    private long debounceMillis;
+
+    @SuppressWarnings("unchecked")
+    public <T> CachedResult<T> get(String key, Supplier<T> loader) {
+        CachedResult<?> cached = analyticsResultCache.getIfPresent(key);
+        if (cached == null || !usable(cached)) {
+            // Checked again under the key's lock: another reader may have just recomputed it
+            cached = analyticsResultCache.asMap().compute(key, (k, current) ->
+                    current != null && usable(current) ? current : load(loader));
+        }
+        return (CachedResult<T>) cached;
+    }
+
+    public void invalidateAll() {
+        analyticsResultCache.invalidateAll();
+    }
+
+    // Up to date, or outdated by writes but computed within the debounce window
+    private boolean usable(CachedResult<?> result) {
+        return result.getVersion().equals(rideVersionService.global())
+                || Duration.between(result.getComputedAt(), Instant.now()).toMillis() < debounceMillis;
+    }
+
+    private <T> CachedResult<T> load(Supplier<T> loader) {
+        String version = rideVersionService.global();
+        return new CachedResult<>(loader.get(), Instant.now(), version);
+    }
+}
@@ -4,113 +4,85 @@ import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.data.mongodb.core.aggregation.*;
 import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import java.util.List;
+import java.util.stream.Collectors;
 
+import static org.example.uberbackend.service.RideStatsService.DAILY_STATS;
+import static org.example.uberbackend.service.RideStatsService.DRIVER_STATS;
+import static org.example.uberbackend.service.RideStatsService.PASSENGER_STATS;
+import static org.example.uberbackend.service.RideStatsService.STATUS_STATS;
+
+// Reads the summary documents maintained by RideStatsService. Response shapes
+// are the same as the aggregation pipelines these endpoints used to run.
 @Service
 public class AnalyticsService {
 
     @Autowired
     private MongoTemplate mongoTemplate;
 
-    // API 1: Total earnings for a driver
+    // API 1: Total earnings for a driver (COMPLETED rides only)
     public Double getTotalEarnings(String driverUsername) {
-        MatchOperation match = Aggregation.match(
-            Criteria.where("driverUsername").is(driverUsername)
-                .and("status").is("COMPLETED")
-        );
-
-        GroupOperation group = Aggregation.group()
-            .sum("fare").as("total");
-
-        Aggregation aggregation = Aggregation.newAggregation(match, group);
-
-        Document result = mongoTemplate.aggregate(
-            aggregation, "rides", Document.class
-        ).getUniqueMappedResult();
-
-        return result != null ? result.getDouble("total") : 0.0;
+        Document stats = findById(DRIVER_STATS, driverUsername);
+        return stats != null ? number(stats.get("earnings")) : 0.0;
     }
 
-    // API 2: Rides per day (GROUP BY createdDate)
+    // API 2: Rides per day
     public List<Document> getRidesPerDay() {
-        GroupOperation group = Aggregation.group("createdDate")
-            .count().as("count");
+        Query query = new Query().with(Sort.by(Sort.Direction.DESC, "_id"));
 
-        ProjectionOperation project = Aggregation.project()
-            .and("_id").as("date")
-            .and("count").as("ridesCount")
-            .andExclude("_id");
-
-        SortOperation sort = Aggregation.sort(Sort.Direction.DESC, "date");
-
-        Aggregation aggregation = Aggregation.newAggregation(group, project, sort);
-
-        return mongoTemplate.aggregate(
-            aggregation, "rides", Document.class
-        ).getMappedResults();
+        return mongoTemplate.find(query, Document.class, DAILY_STATS).stream()
+            .map(day -> new Document("date", day.get("_id"))
+                .append("ridesCount", day.get("ridesCount")))
+            .collect(Collectors.toList());
     }
 
     // API 3: Driver summary (total rides, completed, avg distance, total fare)
     public Document getDriverSummary(String driverUsername) {
-        MatchOperation match = Aggregation.match(
-            Criteria.where("driverUsername").is(driverUsername)
-        );
-
-        GroupOperation group = Aggregation.group()
-            .count().as("totalRides")
-            .sum(ConditionalOperators.when(
-                Criteria.where("status").is("COMPLETED")
-            ).then(1).otherwise(0)).as("completedRides")
-            .avg("distanceKm").as("avgDistance")
-            .sum("fare").as("totalFare");
-
-        Aggregation aggregation = Aggregation.newAggregation(match, group);
-
-        Document result = mongoTemplate.aggregate(
-            aggregation, "rides", Document.class
-        ).getUniqueMappedResult();
-
-        return result != null ? result : new Document();
+        Document stats = findById(DRIVER_STATS, driverUsername);
+        if (stats == null) {
+            return new Document();
+        }
+
+        double distanceCount = number(stats.get("distanceCount"));
+        Double avgDistance = distanceCount > 0 ? number(stats.get("distanceSum")) / distanceCount : null;
+
+        return new Document("_id", null)
+            .append("totalRides", stats.get("totalRides"))
+            .append("completedRides", stats.get("completedRides", 0))
+            .append("avgDistance", avgDistance)
+            .append("totalFare", number(stats.get("totalFare")));
     }
 
     // API 4: User spending (total completed rides + total fare paid)
     public Document getUserSpending(String passengerUsername) {
-        MatchOperation match = Aggregation.match(
-            Criteria.where("passengerUsername").is(passengerUsername)
-                .and("status").is("COMPLETED")
-        );
-
-        GroupOperation group = Aggregation.group()
-            .count().as("totalCompletedRides")
-            .sum("fare").as("totalSpent");
-
-        Aggregation aggregation = Aggregation.newAggregation(match, group);
-
-        Document result = mongoTemplate.aggregate(
-            aggregation, "rides", Document.class
-        ).getUniqueMappedResult();
-
-        return result != null ? result : new Document();
+        Document stats = findById(PASSENGER_STATS, passengerUsername);
+        if (stats == null) {
+            return new Document();
+        }
+
+        return new Document("_id", null)
+            .append("totalCompletedRides", stats.get("totalCompletedRides"))
+            .append("totalSpent", number(stats.get("totalSpent")));
     }
 
     // API 5: Status summary (count by status)
     public List<Document> getStatusSummary() {
-        GroupOperation group = Aggregation.group("status")
-            .count().as("count");
+        Query query = new Query(Criteria.where("ridesCount").gt(0));
 
-        ProjectionOperation project = Aggregation.project()
-            .and("_id").as("status")
-            .and("count").as("ridesCount")
-            .andExclude("_id");
+        return mongoTemplate.find(query, Document.class, STATUS_STATS).stream()
+            .map(status -> new Document("status", status.get("_id"))
+                .append("ridesCount", status.get("ridesCount")))
+            .collect(Collectors.toList());
+    }
 
-        Aggregation aggregation = Aggregation.newAggregation(group, project);
+    private Document findById(String collection, String id) {
+        return mongoTemplate.findById(id, Document.class, collection);
+    }
 
-        return mongoTemplate.aggregate(
-            aggregation, "rides", Document.class
-        ).getMappedResults();
+    private static double number(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
     }
 }
-
@@ -0,0 +1,204 @@
+package org.example.uberbackend.service;
+
+import org.example.uberbackend.dto.NearbyDriver;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// In-memory grid of online drivers for k-nearest lookups. Positions are bucketed
+// into fixed lat/lng cells (a geohash-style grid with integer cell keys), and a
+// query scans rings of cells outward from the query point until no unscanned
+// cell can hold anything closer than the k-th candidate found so far.
+@Component
+public class DriverLocationIndex {
+
+    private static final double CELL_DEGREES = 0.01;       // ~1.1 km of latitude
+    private static final double KM_PER_DEGREE = 111.32;
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final int COLUMNS = (int) Math.round(360 / CELL_DEGREES);
+
+    private final Map<String, Position> drivers = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> cells = new ConcurrentHashMap<>();
+
+    @Value("${drivers.location.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    public void update(String username, double lat, double lng) {
+        long cell = cellKey(lat, lng);
+        // compute() serializes updates per driver, so cell moves never interleave
+        drivers.compute(username, (name, previous) -> {
+            if (previous != null && previous.cell != cell) {
+                removeFromCell(previous.cell, name);
+            }
+            addToCell(cell, name);
+            return new Position(lat, lng, cell, System.currentTimeMillis());
+        });
+    }
+
+    public void remove(String username) {
+        drivers.computeIfPresent(username, (name, position) -> {
+            removeFromCell(position.cell, name);
+            return null;
+        });
+    }
+
+    public List<NearbyDriver> nearest(double lat, double lng, int k, double maxRadiusKm) {
+        long staleBefore = System.currentTimeMillis() - ttlSeconds * 1000;
+        int row = cellIndex(lat);
+        int col = cellIndex(lng);
+
+        // Rings grow by one row of latitude cells at a time. Longitude cells shrink with
+        // cos(lat), so each ring spans proportionally more columns; the ratio is taken at
+        // the most poleward latitude the search can reach so columns are never undercounted.
+        double rowKm = CELL_DEGREES * KM_PER_DEGREE;
+        double farthestLat = Math.min(90, Math.abs(lat) + maxRadiusKm / KM_PER_DEGREE);
+        double colKm = rowKm * Math.max(Math.cos(Math.toRadians(farthestLat)), 0.01);
+        double colsPerRow = rowKm / colKm;
+        int maxRing = (int) Math.ceil(maxRadiusKm / rowKm) + 1;
+
+        // Max-heap of the best k so far: the root is the current k-th nearest
+        PriorityQueue<NearbyDriver> best = new PriorityQueue<>(
+            Comparator.comparingDouble(NearbyDriver::getDistanceKm).reversed());
+
+        int previousCols = -1;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            int cols = colsInRing(ring, colsPerRow);
+
+            // Only the cells this ring adds to the previous rectangle: its top and bottom
+            // rows in full, plus the newly covered columns on both sides of the inner rows
+            for (int dCol = -cols; dCol <= cols; dCol++) {
+                collect(cellKey(row - ring, col + dCol), lat, lng, k, maxRadiusKm, staleBefore, best);
+                if (ring > 0) {
+                    collect(cellKey(row + ring, col + dCol), lat, lng, k, maxRadiusKm, staleBefore, best);
+                }
+            }
+            for (int dRow = -ring + 1; dRow <= ring - 1; dRow++) {
+                for (int dCol = previousCols + 1; dCol <= cols; dCol++) {
+                    collect(cellKey(row + dRow, col + dCol), lat, lng, k, maxRadiusKm, staleBefore, best);
+                    collect(cellKey(row + dRow, col - dCol), lat, lng, k, maxRadiusKm, staleBefore, best);
+                }
+            }
+            previousCols = cols;
+
+            // Anything outside this ring is at least ring * rowKm away
+            if (best.size() == k && best.peek().getDistanceKm() <= ring * rowKm) {
+                break;
+            }
+        }
+
+        List<NearbyDriver> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(NearbyDriver::getDistanceKm));
+        return result;
+    }
+
+    // Half-width in columns; capped just below half the globe so wrapped columns never repeat
+    private static int colsInRing(int ring, double colsPerRow) {
+        return (int) Math.min(Math.ceil(ring * colsPerRow), COLUMNS / 2 - 1);
+    }
+
+    public int onlineDrivers() {
+        return drivers.size();
+    }
+
+    // Drivers that stopped sending heartbeats go offline
+    @Scheduled(fixedDelayString = "${drivers.location.sweep-interval-ms:30000}")
+    public void evictStale() {
+        long staleBefore = System.currentTimeMillis() - ttlSeconds * 1000;
+        drivers.forEach((name, position) -> {
+            if (position.updatedAt < staleBefore) {
+                drivers.computeIfPresent(name, (key, current) -> {
+                    if (current.updatedAt >= staleBefore) {
+                        return current;
+                    }
+                    removeFromCell(current.cell, key);
+                    return null;
+                });
+            }
+        });
+    }
+
+    private void collect(long cell, double lat, double lng, int k, double maxRadiusKm,
+                         long staleBefore, PriorityQueue<NearbyDriver> best) {
+        Set<String> names = cells.get(cell);
+        if (names == null) {
+            return;
+        }
+        for (String name : names) {
+            Position position = drivers.get(name);
+            if (position == null || position.updatedAt < staleBefore) {
+                continue;
+            }
+            double distance = haversineKm(lat, lng, position.lat, position.lng);
+            if (distance > maxRadiusKm) {
+                continue;
+            }
+            if (best.size() < k) {
+                best.add(new NearbyDriver(name, position.lat, position.lng, distance));
+            } else if (distance < best.peek().getDistanceKm()) {
+                best.poll();
+                best.add(new NearbyDriver(name, position.lat, position.lng, distance));
+            }
+        }
+    }
+
+    // Both cell operations run under the map's bin lock, so an add can't land in a set
+    // that a concurrent remove is about to drop
+    private void addToCell(long cell, String username) {
+        cells.compute(cell, (key, names) -> {
+            Set<String> members = names != null ? names : ConcurrentHashMap.newKeySet();
+            members.add(username);
+            return members;
+        });
+    }
+
+    private void removeFromCell(long cell, String username) {
+        cells.computeIfPresent(cell, (key, names) -> {
+            names.remove(username);
+            return names.isEmpty() ? null : names;
+        });
+    }
+
+    private static int cellIndex(double degrees) {
+        return (int) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    private static long cellKey(double lat, double lng) {
+        return cellKey(cellIndex(lat), cellIndex(lng));
+    }
+
+    // Columns wrap at the antimeridian, so -180 and 180 share a cell and rings cross it
+    private static long cellKey(int row, int col) {
+        int wrapped = Math.floorMod(col + COLUMNS / 2, COLUMNS) - COLUMNS / 2;
+        return ((long) row << 32) | (wrapped & 0xffffffffL);
+    }
+
+    private static double haversineKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(a));
+    }
+
+    private static final class Position {
+        final double lat;
+        final double lng;
+        final long cell;
+        final long updatedAt;
+
+        Position(double lat, double lng, long cell, long updatedAt) {
+            this.lat = lat;
+            this.lng = lng;
+            this.cell = cell;
+            this.updatedAt = updatedAt;
+        }
+    }
+}
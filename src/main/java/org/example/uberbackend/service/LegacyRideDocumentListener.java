@@ -0,0 +1,22 @@
+package org.example.uberbackend.service;
+
+import org.bson.Document;
+import org.example.uberbackend.model.Ride;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterLoadEvent;
+import org.springframework.stereotype.Component;
+
+// Converts rides still in the original schema as they are read, before mapping,
+// e.g. by id while RideSchemaMigration is still running or when it is disabled.
+// List queries go through RideReader, which does the same for its results.
+@Component
+public class LegacyRideDocumentListener extends AbstractMongoEventListener<Ride> {
+
+    @Override
+    public void onAfterLoad(AfterLoadEvent<Ride> event) {
+        Document document = event.getDocument();
+        if (document != null && RideSchemaMigration.isLegacy(document)) {
+            RideSchemaMigration.upgrade(document);
+        }
+    }
+}
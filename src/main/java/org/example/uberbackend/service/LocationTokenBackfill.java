@@ -0,0 +1,75 @@
+package org.example.uberbackend.service;
+
+import org.example.uberbackend.model.Ride;
+import org.example.uberbackend.util.LocationTokenizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import java.util.stream.Stream;
+
+// Fills locationTokens on rides written before indexed search existed.
+// Idempotent: only rides without the field are touched.
+@Component
+public class LocationTokenBackfill implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(LocationTokenBackfill.class);
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${rides.search.backfill-on-startup:true}")
+    private boolean enabled;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            backfill();
+        }
+    }
+
+    public long backfill() {
+        // Rides still in the legacy schema are skipped; RideSchemaMigration carries their tokens over
+        Query query = new Query(Criteria.where("locationTokens").exists(false).and("status").exists(true));
+        query.fields().include("pickupLocation", "dropLocation");
+        query.cursorBatchSize(BATCH_SIZE);
+
+        long updated = 0;
+        int pending = 0;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Ride.class);
+
+        try (Stream<Ride> rides = mongoTemplate.stream(query, Ride.class)) {
+            for (Ride ride : (Iterable<Ride>) rides::iterator) {
+                bulk.updateOne(
+                    new Query(Criteria.where("id").is(ride.getId())),
+                    new Update().set("locationTokens",
+                        LocationTokenizer.indexTokens(ride.getPickupLocation(), ride.getDropLocation()))
+                );
+
+                if (++pending == BATCH_SIZE) {
+                    updated += bulk.execute().getModifiedCount();
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Ride.class);
+                    pending = 0;
+                }
+            }
+        }
+
+        if (pending > 0) {
+            updated += bulk.execute().getModifiedCount();
+        }
+
+        if (updated > 0) {
+            log.info("Backfilled location search tokens on {} rides", updated);
+        }
+        return updated;
+    }
+}
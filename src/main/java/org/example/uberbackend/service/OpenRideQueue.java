@@ -0,0 +1,225 @@
+package org.example.uberbackend.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.example.uberbackend.model.Ride;
+import org.example.uberbackend.model.RideStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+// In-process queue of REQUESTED rides, oldest first, sharded by pickup area.
+// createRide offers rides, acceptRide claims them, and drivers read /api/rides/open
+// from here instead of scanning Mongo. The claim is a single remove() on the
+// open-ride map, so a ride can be handed out at most once; MongoDB stays the
+// source of truth for the status transition itself. Rides offered while the queue
+// holds dispatch.queue.max-size are counted and left out; once it has room again,
+// refillAfterOverflow() reloads from MongoDB so they are offered after all.
+@Component
+public class OpenRideQueue implements ApplicationRunner {
+
+    public static final String UNLOCATED = "unlocated";
+
+    private static final Logger log = LoggerFactory.getLogger(OpenRideQueue.class);
+    private static final double AREA_DEGREES = 0.5;    // ~55 km of latitude per shard
+    private static final Comparator<Entry> OLDEST_FIRST = Comparator
+            .comparing((Entry entry) -> entry.createdAt)
+            .thenComparing(entry -> entry.rideId);
+
+    private final Map<String, Ride> open = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<Entry>> shards = new ConcurrentHashMap<>();
+
+    // Rides left out because the queue was full, and whether any were since the last refill
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicBoolean overflowed = new AtomicBoolean();
+
+    @Autowired
+    private RideReader rideReader;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${dispatch.queue.max-size:100000}")
+    private int maxSize = 100000;
+
+    @PostConstruct
+    void registerMetrics() {
+        meterRegistry.gauge("dispatch.queue.size", open, Map::size);
+        FunctionCounter.builder("dispatch.queue.dropped", dropped, LongAdder::sum)
+                .description("REQUESTED rides left out of the dispatch queue because it was full")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuild();
+    }
+
+    // Loads REQUESTED rides from Mongo at startup. Rides offered meanwhile are
+    // deduplicated by id; a ride accepted during the load may be re-offered, in
+    // which case its next accept fails the conditional update and drains it.
+    public void rebuild() {
+        Query query = new Query(Criteria.where("status").is(RideStatus.REQUESTED))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt"));
+        query.cursorBatchSize(500);
+
+        long loaded = 0;
+        try (Stream<Ride> rides = rideReader.stream(query)) {
+            for (Ride ride : (Iterable<Ride>) rides::iterator) {
+                if (open.size() >= maxSize) {
+                    // The rest are newer than anything queued; the next refill gets to them
+                    overflow();
+                    break;
+                }
+                if (offer(ride)) {
+                    loaded++;
+                }
+            }
+        }
+        log.info("Open ride queue rebuilt with {} rides", loaded);
+    }
+
+    // Rides left out while the queue was full are still REQUESTED in MongoDB: once
+    // accepts have made room, load them again (already queued rides are skipped)
+    @Scheduled(fixedDelayString = "${dispatch.queue.refill-check-ms:10000}")
+    public void refillAfterOverflow() {
+        if (open.size() < maxSize && overflowed.compareAndSet(true, false)) {
+            log.info("Dispatch queue has room again, reloading rides left out while it was full");
+            rebuild();
+        }
+    }
+
+    // The shard entry goes in before the ride is published in `open`: a claim can then
+    // never see the ride without also finding (and removing) its entry
+    public boolean offer(Ride ride) {
+        if (ride.getId() == null || ride.getStatus() != RideStatus.REQUESTED) {
+            return false;
+        }
+        if (open.size() >= maxSize) {
+            if (!open.containsKey(ride.getId())) {
+                dropped.increment();
+                overflow();
+            }
+            return false;
+        }
+        NavigableSet<Entry> shard = shards.computeIfAbsent(areaOf(ride), area -> new ConcurrentSkipListSet<>(OLDEST_FIRST));
+        Entry entry = entryFor(ride);
+        boolean added = shard.add(entry);
+
+        if (open.putIfAbsent(ride.getId(), ride) != null) {
+            // Already queued: drop our entry only if it was new and the ride is gone again
+            if (added && !open.containsKey(ride.getId())) {
+                shard.remove(entry);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    // Atomically takes the ride out of the queue. Exactly one caller gets it back;
+    // everyone else (and callers for unknown rides) gets null.
+    public Ride claim(String rideId) {
+        Ride ride = open.remove(rideId);
+        if (ride != null) {
+            NavigableSet<Entry> shard = shards.get(areaOf(ride));
+            if (shard != null) {
+                shard.remove(entryFor(ride));
+            }
+        }
+        return ride;
+    }
+
+    // Oldest open rides in one area, or across all areas when area is null
+    public List<Ride> oldest(int limit, String area) {
+        List<Ride> rides = new ArrayList<>();
+        if (area != null) {
+            collect(shards.get(area), limit, rides);
+            return rides;
+        }
+
+        for (NavigableSet<Entry> shard : shards.values()) {
+            collect(shard, limit, rides);
+        }
+        rides.sort(Comparator.comparing(OpenRideQueue::entryFor, OLDEST_FIRST));
+        return rides.size() > limit ? new ArrayList<>(rides.subList(0, limit)) : rides;
+    }
+
+    public int size() {
+        return open.size();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    // Warns once per episode rather than once per ride
+    private void overflow() {
+        if (overflowed.compareAndSet(false, true)) {
+            log.warn("Dispatch queue is full at {} rides; new rides are left out until it has room again", maxSize);
+        }
+    }
+
+    public static String areaOf(Ride ride) {
+        Point point = ride.getPickupPoint();
+        return point == null ? UNLOCATED : areaOf(point.getY(), point.getX());
+    }
+
+    public static String areaOf(double lat, double lng) {
+        return (int) Math.floor(lat / AREA_DEGREES) + ":" + (int) Math.floor(lng / AREA_DEGREES);
+    }
+
+    // Up to `limit` rides from the shard that are still open. Entries whose ride was
+    // claimed a moment ago are skipped rather than counted, so pages stay full.
+    private void collect(NavigableSet<Entry> shard, int limit, List<Ride> into) {
+        if (shard == null) {
+            return;
+        }
+        int taken = 0;
+        for (Entry entry : shard) {
+            Ride ride = open.get(entry.rideId);
+            if (ride == null) {
+                continue;
+            }
+            into.add(ride);
+            if (++taken == limit) {
+                break;
+            }
+        }
+    }
+
+    private static Entry entryFor(Ride ride) {
+        LocalDateTime createdAt = ride.getCreatedAt() != null ? ride.getCreatedAt() : LocalDateTime.MIN;
+        return new Entry(createdAt, ride.getId());
+    }
+
+    private static final class Entry {
+        final LocalDateTime createdAt;
+        final String rideId;
+
+        Entry(LocalDateTime createdAt, String rideId) {
+            this.createdAt = createdAt;
+            this.rideId = rideId;
+        }
+    }
+}
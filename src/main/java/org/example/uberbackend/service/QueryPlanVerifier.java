@@ -0,0 +1,129 @@
+package org.example.uberbackend.service;
+
+import org.bson.Document;
+import org.example.uberbackend.model.GeoLocation;
+import org.example.uberbackend.model.Ride;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Explains every ride query shape at startup and reports the ones the planner
+// would answer with a collection scan, so a new query can't ship without an index.
+// mongo.index-check.mode: log (default), fail (abort startup) or off.
+@Component
+public class QueryPlanVerifier implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryPlanVerifier.class);
+    private static final String SAMPLE = "__index_check__";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${mongo.index-check.mode:log}")
+    private String mode;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if ("off".equalsIgnoreCase(mode)) {
+            return;
+        }
+
+        List<String> collectionScans = verify();
+        if (collectionScans.isEmpty()) {
+            log.info("Index check: all ride query shapes use an index");
+            return;
+        }
+
+        String message = "Index check: ride queries without a usable index: " + collectionScans;
+        if ("fail".equalsIgnoreCase(mode)) {
+            throw new IllegalStateException(message);
+        }
+        log.warn(message);
+    }
+
+    // Names of the query shapes whose winning plan contains a COLLSCAN stage
+    public List<String> verify() {
+        List<String> collectionScans = new ArrayList<>();
+        queryShapes().forEach((name, query) -> {
+            Document plan = explain(query);
+            boolean scans = containsStage(plan.get("queryPlanner"), "COLLSCAN");
+            log.debug("Index check: {} -> {}", name, scans ? "COLLSCAN" : "indexed");
+            if (scans) {
+                collectionScans.add(name);
+            }
+        });
+        return collectionScans;
+    }
+
+    // getAllRides is a deliberate full scan and is not listed
+    private Map<String, Query> queryShapes() {
+        LocalDate today = LocalDate.now();
+        Map<String, Query> shapes = new LinkedHashMap<>();
+        shapes.put("search", RideQueries.search(SAMPLE));
+        shapes.put("filterByDistance", RideQueries.distanceRange(0.0, 10.0));
+        shapes.put("filterByDateRange", RideQueries.dateRange(today.minusDays(7), today));
+        shapes.put("sortByFare", RideQueries.sortedByFare("asc"));
+        shapes.put("getRidesByUser", RideQueries.byUser(SAMPLE));
+        shapes.put("getRidesByUserAndStatus", RideQueries.byUserAndStatus(SAMPLE, "REQUESTED"));
+        shapes.put("getDriverActiveRides", RideQueries.driverActive(SAMPLE));
+        shapes.put("filterByStatusAndKeyword", RideQueries.statusAndKeyword("REQUESTED", SAMPLE));
+        shapes.put("advancedSearch", RideQueries.advancedSearch(null, null, "createdAt", "asc"));
+        shapes.put("advancedSearchByStatus", RideQueries.advancedSearch(null, "REQUESTED", "createdAt", "asc"));
+        for (String sortField : RideQueries.KEYSET_SORT_FIELDS) {
+            shapes.put("advancedSearchPage[" + sortField + "]",
+                RideQueries.advancedSearchAfter(null, null, sortField, "asc", null, 10));
+        }
+        shapes.put("getRidesByDate", RideQueries.onDate(today));
+        shapes.put("nearbyRides", RideQueries.nearby(new GeoLocation(0.0, 0.0), 5, "REQUESTED", 20));
+        return shapes;
+    }
+
+    private Document explain(Query query) {
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext().getPersistentEntity(Ride.class);
+        QueryMapper mapper = new QueryMapper(mongoTemplate.getConverter());
+
+        Document filter = mapper.getMappedObject(query.getQueryObject(), entity);
+        Document sort = mapper.getMappedSort(query.getSortObject(), entity);
+
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Ride.class))
+                .find(filter)
+                .sort(sort)
+                .explain();
+    }
+
+    // Walks the whole plan tree: classic plans nest via inputStage(s), SBE plans via queryPlan
+    private static boolean containsStage(Object node, String stage) {
+        if (node instanceof Document) {
+            Document document = (Document) node;
+            if (stage.equals(document.get("stage"))) {
+                return true;
+            }
+            for (Map.Entry<String, Object> entry : document.entrySet()) {
+                // Rejected plans don't matter, only what the planner picked
+                if (!entry.getKey().equals("rejectedPlans") && containsStage(entry.getValue(), stage)) {
+                    return true;
+                }
+            }
+        } else if (node instanceof List) {
+            for (Object element : (List<?>) node) {
+                if (containsStage(element, stage)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.uberbackend.service;
+
+import org.example.uberbackend.model.Ride;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import java.time.Duration;
+import java.time.LocalDate;
+
+// Read side of /api/v2/rides on the reactive Mongo driver. Runs the same RideQueries
+// shapes as RideService, so both API versions hit the same indexes.
+@Service
+public class ReactiveRideService {
+
+    // Documents fetched per getMore; demand from a slow client stops further fetches
+    private static final int CURSOR_BATCH_SIZE = 100;
+
+    @Autowired
+    private RideReader rideReader;
+
+    @Value("${rides.v2.write-timeout-ms:30000}")
+    private long writeTimeoutMs;
+
+    public Flux<Ride> getAllRides() {
+        return find(RideQueries.all());
+    }
+
+    public Flux<Ride> searchRides(String text) {
+        return find(RideQueries.search(text));
+    }
+
+    public Flux<Ride> filterByDistance(Double min, Double max) {
+        return find(RideQueries.distanceRange(min, max));
+    }
+
+    public Flux<Ride> filterByDateRange(LocalDate start, LocalDate end) {
+        return find(RideQueries.dateRange(start, end));
+    }
+
+    public Flux<Ride> sortByFare(String order) {
+        return find(RideQueries.sortedByFare(order));
+    }
+
+    public Flux<Ride> getRidesByUser(String userId) {
+        return find(RideQueries.byUser(userId));
+    }
+
+    public Flux<Ride> getRidesByUserAndStatus(String userId, String status) {
+        return find(RideQueries.byUserAndStatus(userId, status));
+    }
+
+    public Flux<Ride> getDriverActiveRides(String driverId) {
+        return find(RideQueries.driverActive(driverId));
+    }
+
+    public Flux<Ride> filterByStatusAndKeyword(String status, String search) {
+        return find(RideQueries.statusAndKeyword(status, search));
+    }
+
+    public Flux<Ride> getRidesByDate(LocalDate date) {
+        return find(RideQueries.onDate(date));
+    }
+
+    // Spring MVC hands each element to its async executor (virtual threads, see WebConfig)
+    // and only requests the next one once the blocking socket write has returned, so the
+    // driver's I/O threads never write. The timeout ends a stream whose client hasn't
+    // taken the next ride within write-timeout-ms; the write it is stuck in still holds
+    // its virtual thread and socket until Tomcat gives up on it.
+    private Flux<Ride> find(Query query) {
+        return rideReader.flux(query.cursorBatchSize(CURSOR_BATCH_SIZE))
+                .timeout(Duration.ofMillis(writeTimeoutMs));
+    }
+}
@@ -0,0 +1,116 @@
+package org.example.uberbackend.service;
+
+import org.example.uberbackend.model.RefreshToken;
+import org.example.uberbackend.util.JwtUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+// Rotating refresh tokens. Redeeming one is a single indexed findAndModify and a
+// SHA-256, so renewing an access token never goes through BCrypt.
+@Service
+public class RefreshTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UserService userService;
+
+    @Value("${jwt.refresh.expiration-ms:2592000000}")
+    private long refreshExpirationMs;
+
+    public record Issued(String token, String username, String role) {}
+
+    // Starts a new token family, e.g. after a password login
+    public String issue(String username) {
+        return create(username, UUID.randomUUID().toString());
+    }
+
+    // Marks the token as used and hands out its successor in the same family.
+    // Presenting an already-used token revokes the whole family, so a stolen token
+    // stops working for both the thief and the owner once either one rotates.
+    // The new access token carries the user's current role, not the one at login,
+    // and a deleted user's family is revoked instead of renewed.
+    public Issued rotate(String token) {
+        String id = JwtUtil.digest(token);
+        Instant now = Instant.now();
+
+        RefreshToken redeemed = mongoTemplate.findAndModify(
+                new Query(Criteria.where("id").is(id).and("usedAt").is(null).and("expiresAt").gt(now)),
+                new Update().set("usedAt", now),
+                FindAndModifyOptions.options().returnNew(true),
+                RefreshToken.class
+        );
+
+        if (redeemed == null) {
+            RefreshToken existing = mongoTemplate.findById(id, RefreshToken.class);
+            if (existing != null && existing.getUsedAt() != null) {
+                log.warn("Refresh token reuse for user {}, revoking its family", existing.getUsername());
+                revokeFamily(existing.getFamily());
+            }
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid or expired refresh token");
+        }
+
+        UserDetails user;
+        try {
+            user = userService.loadCachedUser(redeemed.getUsername());
+        } catch (UsernameNotFoundException e) {
+            revokeFamily(redeemed.getFamily());
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid or expired refresh token");
+        }
+        String role = user.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .findFirst()
+                .orElse(null);
+
+        String next = create(user.getUsername(), redeemed.getFamily());
+        return new Issued(next, user.getUsername(), role);
+    }
+
+    // Logout: the presented token and every token rotated from the same login stop working
+    public void revoke(String token) {
+        RefreshToken existing = mongoTemplate.findById(JwtUtil.digest(token), RefreshToken.class);
+        if (existing != null) {
+            revokeFamily(existing.getFamily());
+        }
+    }
+
+    private void revokeFamily(String family) {
+        mongoTemplate.remove(new Query(Criteria.where("family").is(family)), RefreshToken.class);
+    }
+
+    private String create(String username, String family) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        mongoTemplate.insert(new RefreshToken(
+                JwtUtil.digest(token),
+                username,
+                family,
+                Instant.now().plusMillis(refreshExpirationMs),
+                null
+        ));
+        return token;
+    }
+}
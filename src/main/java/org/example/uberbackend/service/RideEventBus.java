@@ -0,0 +1,315 @@
+package org.example.uberbackend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.uberbackend.dto.RideBatchEvent;
+import org.example.uberbackend.dto.RideEvent;
+import org.example.uberbackend.model.Ride;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// In-process fan-out of ride lifecycle events to SSE subscribers.
+//
+// Publishing never blocks: each subscriber has a bounded buffer and a drain task
+// that does the (blocking) socket writes on its own virtual thread, so a client that
+// stops reading parks only its own drain. A subscriber whose buffer overflows, or
+// whose current write has been stuck for longer than send-timeout-ms, is disconnected
+// and is expected to reconnect and re-read its rides. Rides created together arrive
+// as one CREATED_BATCH event, so a batch request can't overflow those buffers on its
+// own. Events only reach subscribers connected to this instance.
+@Component
+public class RideEventBus {
+
+    private static final Logger log = LoggerFactory.getLogger(RideEventBus.class);
+    private static final Object HEARTBEAT = new Object();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${rides.events.buffer-size:256}")
+    private int bufferSize;
+
+    @Value("${rides.events.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    // Open streams per user; a reconnect loop can't take over the whole subscriber budget
+    @Value("${rides.events.max-per-user:3}")
+    private int maxPerUser;
+
+    @Value("${rides.events.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    @Value("${rides.events.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    // Rides listed in a CREATED_BATCH event; the count covers all of them
+    @Value("${rides.events.batch-preview:20}")
+    private int batchPreview;
+
+    // Subscribers by username: passengers and drivers see their own rides
+    private final Map<String, Set<Subscriber>> byUser = new ConcurrentHashMap<>();
+    // Drivers who also want every new ride (and to learn when it's taken)
+    private final Set<Subscriber> openRideWatchers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ExecutorService drainExecutor;
+    private Counter overflowDisconnects;
+    private Counter stalledDisconnects;
+
+    // Virtual threads regardless of spring.threads.virtual.enabled: a shared pool of
+    // platform threads would let a few stalled sockets hold up every other subscriber
+    @PostConstruct
+    void start() {
+        drainExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ride-events-", 0).factory());
+        meterRegistry.gauge("ride.events.subscribers", subscribers);
+        overflowDisconnects = Counter.builder("ride.events.overflow.disconnects")
+                .description("SSE subscribers dropped because their buffer filled up")
+                .register(meterRegistry);
+        stalledDisconnects = Counter.builder("ride.events.stalled.disconnects")
+                .description("SSE subscribers dropped because a write did not finish within the send timeout")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        drainExecutor.shutdownNow();
+    }
+
+    public SseEmitter subscribe(String username, boolean openRides) {
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many event subscribers, retry later");
+        }
+
+        SseEmitter emitter = createEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(username, openRides, emitter);
+        boolean[] added = new boolean[1];
+        byUser.compute(username, (key, set) -> {
+            Set<Subscriber> mine = set != null ? set : ConcurrentHashMap.<Subscriber>newKeySet();
+            if (mine.size() < maxPerUser) {
+                added[0] = mine.add(subscriber);
+            }
+            return mine.isEmpty() ? null : mine;
+        });
+        if (!added[0]) {
+            subscribers.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Too many open event streams for this user, close one first");
+        }
+        if (openRides) {
+            openRideWatchers.add(subscriber);
+        }
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(error -> remove(subscriber));
+        return emitter;
+    }
+
+    public void publish(RideEvent.Type type, Ride ride) {
+        Outgoing event = outgoing(type.name(), new RideEvent(type, ride));
+        deliver(ride.getPassengerUsername(), event);
+        if (ride.getDriverUsername() != null && !ride.getDriverUsername().equals(ride.getPassengerUsername())) {
+            deliver(ride.getDriverUsername(), event);
+        }
+        if (type == RideEvent.Type.CREATED || type == RideEvent.Type.ACCEPTED) {
+            openRideWatchers.forEach(subscriber -> subscriber.enqueue(event));
+        }
+    }
+
+    // Rides created together, by a batch request or a group-commit flush. A passenger
+    // with several of them gets one CREATED_BATCH event, and so does every open-ride
+    // watcher; a single ride is an ordinary CREATED event.
+    public void publishCreated(List<Ride> rides) {
+        if (rides.size() == 1) {
+            publish(RideEvent.Type.CREATED, rides.get(0));
+            return;
+        }
+
+        Map<String, List<Ride>> byPassenger = new LinkedHashMap<>();
+        rides.forEach(ride -> byPassenger.computeIfAbsent(ride.getPassengerUsername(), k -> new ArrayList<>()).add(ride));
+        byPassenger.forEach((passenger, mine) -> deliver(passenger, mine.size() == 1
+                ? outgoing(RideEvent.Type.CREATED.name(), new RideEvent(RideEvent.Type.CREATED, mine.get(0)))
+                : batch(mine)));
+
+        if (!openRideWatchers.isEmpty()) {
+            Outgoing event = batch(rides);
+            openRideWatchers.forEach(subscriber -> subscriber.enqueue(event));
+        }
+    }
+
+    // Keeps idle connections open through proxies and detects dead clients
+    @Scheduled(fixedRateString = "${rides.events.heartbeat-ms:15000}")
+    public void heartbeat() {
+        byUser.values().forEach(set -> set.forEach(subscriber -> subscriber.enqueue(HEARTBEAT)));
+    }
+
+    // A blocked servlet write can't be cancelled from outside, so a stuck subscriber is
+    // dropped from the bus and its drain thread interrupted; the write then fails either
+    // on the interrupt or on Tomcat's own write timeout, and the drain closes the emitter
+    @Scheduled(fixedDelayString = "${rides.events.send-check-ms:1000}")
+    public void abortStalledSends() {
+        long now = System.nanoTime();
+        long limit = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        byUser.values().forEach(set -> set.forEach(subscriber -> {
+            long started = subscriber.sendStartedAt;
+            if (started != 0 && now - started > limit) {
+                subscriber.stalled = true;
+                remove(subscriber);
+                stalledDisconnects.increment();
+                Thread sender = subscriber.sender;
+                if (sender != null) {
+                    sender.interrupt();
+                }
+            }
+        }));
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.get();
+    }
+
+    // Separate so tests can observe what is sent without a servlet container
+    SseEmitter createEmitter(long timeout) {
+        return new SseEmitter(timeout);
+    }
+
+    // The id is taken once here, so every subscriber sees the same id for the same event
+    private Outgoing outgoing(String name, Object data) {
+        return new Outgoing(sequence.incrementAndGet(), name, data);
+    }
+
+    private Outgoing batch(List<Ride> rides) {
+        List<Ride> preview = List.copyOf(rides.subList(0, Math.min(rides.size(), batchPreview)));
+        return outgoing(RideBatchEvent.NAME, new RideBatchEvent(rides.size(), preview));
+    }
+
+    private void deliver(String username, Outgoing event) {
+        Set<Subscriber> targets = byUser.get(username);
+        if (targets != null) {
+            targets.forEach(subscriber -> subscriber.enqueue(event));
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (!subscriber.removed.compareAndSet(false, true)) {
+            return;
+        }
+        subscriber.closed = true;
+        openRideWatchers.remove(subscriber);
+        byUser.computeIfPresent(subscriber.username, (key, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+        subscribers.decrementAndGet();
+    }
+
+    private final class Subscriber {
+        final String username;
+        final boolean openRides;
+        final SseEmitter emitter;
+        final BlockingQueue<Object> buffer = new ArrayBlockingQueue<>(bufferSize);
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        final AtomicBoolean removed = new AtomicBoolean();
+        volatile boolean closed;
+        volatile boolean overflowed;
+        volatile boolean stalled;
+        // System.nanoTime() when the current write began, 0 between writes
+        volatile long sendStartedAt;
+        volatile Thread sender;
+
+        Subscriber(String username, boolean openRides, SseEmitter emitter) {
+            this.username = username;
+            this.openRides = openRides;
+            this.emitter = emitter;
+        }
+
+        // Called on publisher threads: never touches the emitter, only the buffer
+        void enqueue(Object item) {
+            if (closed) {
+                return;
+            }
+            if (!buffer.offer(item)) {
+                overflowed = true;
+                closed = true;
+                overflowDisconnects.increment();
+            }
+            schedule();
+        }
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                drainExecutor.execute(this::drain);
+            }
+        }
+
+        // Only one drain runs per subscriber at a time, so sends are never concurrent
+        void drain() {
+            sender = Thread.currentThread();
+            try {
+                Object item;
+                while (!closed && (item = buffer.poll()) != null) {
+                    sendStartedAt = System.nanoTime();
+                    send(item);
+                    sendStartedAt = 0;
+                }
+                if (overflowed || stalled) {
+                    log.debug("Disconnecting slow event subscriber {}", username);
+                    emitter.complete();
+                    remove(this);
+                }
+            } catch (Exception e) {
+                // Client went away; the emitter callbacks may not fire for a failed write
+                remove(this);
+                emitter.completeWithError(e);
+            } finally {
+                sendStartedAt = 0;
+                sender = null;
+                scheduled.set(false);
+                if (!closed && !buffer.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+
+        private void send(Object item) throws Exception {
+            if (item == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+                return;
+            }
+            Outgoing event = (Outgoing) item;
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(event.id()))
+                    .name(event.name())
+                    .data(event.data(), MediaType.APPLICATION_JSON));
+        }
+    }
+
+    private record Outgoing(long id, String name, Object data) {
+    }
+}
@@ -0,0 +1,232 @@
+package org.example.uberbackend.service;
+
+import org.bson.types.ObjectId;
+import org.example.uberbackend.model.GeoLocation;
+import org.example.uberbackend.model.Ride;
+import org.example.uberbackend.model.RideStatus;
+import org.example.uberbackend.util.LocationTokenizer;
+import org.example.uberbackend.util.RideCursor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Set;
+
+// Query shapes behind the ride list APIs. Kept in one place so the list
+// and streaming variants of each endpoint always run the same query.
+public final class RideQueries {
+
+    public static final Set<String> KEYSET_SORT_FIELDS = Set.of("createdAt", "fare", "distanceKm");
+
+    private RideQueries() {
+    }
+
+    public static Query all() {
+        return new Query();
+    }
+
+    public static Query byIds(Collection<String> ids) {
+        return new Query(Criteria.where("id").in(ids));
+    }
+
+    public static Query search(String text) {
+        return new Query(locationMatches(text));
+    }
+
+    public static Query distanceRange(Double min, Double max) {
+        if (min < 0 || max < 0) {
+            throw new RuntimeException("Distance values cannot be negative");
+        }
+
+        if (min > max) {
+            throw new RuntimeException("Minimum distance cannot be greater than maximum distance");
+        }
+
+        Criteria criteria = Criteria.where("distanceKm").gte(min).lte(max);
+        return new Query(criteria);
+    }
+
+    // The day is derived from createdAt: [start 00:00, day after end 00:00)
+    public static Query dateRange(LocalDate start, LocalDate end) {
+        Criteria criteria = Criteria.where("createdAt").gte(start.atStartOfDay()).lt(end.plusDays(1).atStartOfDay());
+        return new Query(criteria);
+    }
+
+    public static Query sortedByFare(String order) {
+        return new Query().with(Sort.by(direction(order), "fare"));
+    }
+
+    public static Query byUser(String userId) {
+        Criteria criteria = Criteria.where("passengerUsername").is(userId);
+        return new Query(criteria);
+    }
+
+    public static Query byUserAndStatus(String userId, String status) {
+        Criteria criteria = Criteria.where("passengerUsername").is(userId)
+                                   .and("status").is(RideStatus.from(status));
+        return new Query(criteria);
+    }
+
+    public static Query driverActive(String driverId) {
+        Criteria criteria = Criteria.where("driverUsername").is(driverId)
+                                   .and("status").in(RideStatus.REQUESTED, RideStatus.ACCEPTED);
+        return new Query(criteria);
+    }
+
+    public static Query statusAndKeyword(String status, String search) {
+        Criteria statusCriteria = Criteria.where("status").is(RideStatus.from(status));
+        Criteria searchCriteria = locationMatches(search);
+
+        Criteria combined = new Criteria().andOperator(statusCriteria, searchCriteria);
+        return new Query(combined);
+    }
+
+    // Rides whose pickup point is within radiusKm, nearest first ($nearSphere on the 2dsphere index)
+    public static Query nearby(GeoLocation location, double radiusKm, String status, int limit) {
+        if (radiusKm <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Radius must be positive");
+        }
+
+        Criteria criteria = Criteria.where("pickupPoint")
+                .nearSphere(location.toPoint())
+                .maxDistance(radiusKm * 1000);
+        if (status != null && !status.isEmpty()) {
+            criteria = criteria.and("status").is(RideStatus.from(status));
+        }
+        return new Query(criteria).limit(limit);
+    }
+
+    // Filter + sort part of advanced search; paging is applied by the caller.
+    public static Query advancedSearch(String search, String status, String sortBy, String order) {
+        Query query = new Query(advancedSearchCriteria(search, status));
+
+        if (sortBy != null && !sortBy.isEmpty()) {
+            query.with(Sort.by(direction(order), sortProperty(sortBy)));
+        }
+
+        return query;
+    }
+
+    // Keyset variant of advanced search: sorts on (sortBy, _id) and resumes strictly after
+    // the cursor position, so every page is a range scan instead of skip + limit.
+    public static Query advancedSearchAfter(String search, String status, String sortBy, String order,
+                                            RideCursor after, int limit) {
+        sortBy = sortProperty(sortBy);
+        if (!KEYSET_SORT_FIELDS.contains(sortBy)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Cursor pagination supports sorting by " + KEYSET_SORT_FIELDS);
+        }
+
+        Sort.Direction direction = direction(order);
+        Criteria criteria = advancedSearchCriteria(search, status);
+
+        if (after != null) {
+            criteria = new Criteria().andOperator(criteria, keysetCriteria(after, direction));
+        }
+
+        return new Query(criteria)
+                .with(Sort.by(direction, sortBy).and(Sort.by(direction, "id")))
+                .limit(limit);
+    }
+
+    public static RideCursor cursorAfter(Ride ride, String sortBy, String order) {
+        sortBy = sortProperty(sortBy);
+        Object value = sortValue(ride, sortBy);
+        return new RideCursor(sortBy, order, value == null ? null : value.toString(), ride.getId());
+    }
+
+    private static Criteria advancedSearchCriteria(String search, String status) {
+        Criteria criteria = new Criteria();
+
+        if (search != null && !search.isEmpty()) {
+            criteria = locationMatches(search);
+        }
+
+        if (status != null && !status.isEmpty()) {
+            if (search != null && !search.isEmpty()) {
+                Criteria searchCrit = locationMatches(search);
+                criteria = new Criteria().andOperator(
+                    Criteria.where("status").is(RideStatus.from(status)),
+                    searchCrit
+                );
+            } else {
+                criteria = Criteria.where("status").is(RideStatus.from(status));
+            }
+        }
+
+        return criteria;
+    }
+
+    // Every word of the input must prefix a word of the pickup or drop location.
+    // Input that normalizes to no words yields $all: [], which matches nothing.
+    public static Criteria locationMatches(String text) {
+        return Criteria.where("locationTokens").all(LocationTokenizer.queryTokens(text));
+    }
+
+    // MongoDB orders null/missing before any value, so the "after" predicate has to
+    // say explicitly on which side of the last key the null rows fall.
+    private static Criteria keysetCriteria(RideCursor after, Sort.Direction direction) {
+        String field = after.getSortField();
+        Object lastValue = parseSortValue(field, after.getLastValue());
+        Object lastId = ObjectId.isValid(after.getLastId()) ? new ObjectId(after.getLastId()) : after.getLastId();
+        boolean asc = direction == Sort.Direction.ASC;
+
+        Criteria sameKeyNextId = asc
+            ? Criteria.where(field).is(lastValue).and("id").gt(lastId)
+            : Criteria.where(field).is(lastValue).and("id").lt(lastId);
+
+        if (lastValue == null) {
+            return asc
+                ? new Criteria().orOperator(sameKeyNextId, Criteria.where(field).ne(null))
+                : sameKeyNextId;
+        }
+
+        return asc
+            ? new Criteria().orOperator(Criteria.where(field).gt(lastValue), sameKeyNextId)
+            : new Criteria().orOperator(Criteria.where(field).lt(lastValue), sameKeyNextId, Criteria.where(field).is(null));
+    }
+
+    private static Object sortValue(Ride ride, String field) {
+        switch (field) {
+            case "createdAt": return ride.getCreatedAt();
+            case "fare": return ride.getFare();
+            case "distanceKm": return ride.getDistanceKm();
+            default: throw new IllegalArgumentException("Unsupported sort field: " + field);
+        }
+    }
+
+    private static Object parseSortValue(String field, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            switch (field) {
+                case "createdAt": return LocalDateTime.parse(value);
+                case "fare":
+                case "distanceKm": return Double.valueOf(value);
+                default: throw new IllegalArgumentException("Unsupported sort field: " + field);
+            }
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    // createdDate is no longer stored; ordering by createdAt orders by day as well
+    private static String sortProperty(String sortBy) {
+        return "createdDate".equals(sortBy) ? "createdAt" : sortBy;
+    }
+
+    private static Sort.Direction direction(String order) {
+        return "asc".equalsIgnoreCase(order)
+            ? Sort.Direction.ASC
+            : Sort.Direction.DESC;
+    }
+
+    public static Query onDate(LocalDate date) {
+        return dateRange(date, date);
+    }
+}
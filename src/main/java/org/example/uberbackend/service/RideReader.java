@@ -0,0 +1,187 @@
+package org.example.uberbackend.service;
+
+import org.bson.Document;
+import org.example.uberbackend.model.Ride;
+import org.example.uberbackend.model.RideStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Runs the ride list queries. Once RideSchemaMigration is done these are plain
+// template calls. Until then each query is mapped to stored field names and widened
+// to { $or: [<compact query>, <same query on the legacy names>] }, so rides the
+// background migration hasn't reached yet still show up. Their order is approximate:
+// a legacy ride has no value under the compact sort key, so it sorts like a missing
+// value (first ascending, last descending). $nearSphere can't be used inside $or,
+// so nearby search only finds converted rides.
+@Component
+public class RideReader {
+
+    // Compact field -> legacy field
+    private static final Map<String, String> LEGACY_NAMES = new LinkedHashMap<>();
+
+    static {
+        RideSchemaMigration.RENAMES.forEach((legacy, compact) -> LEGACY_NAMES.put(compact, legacy));
+        LEGACY_NAMES.put(Ride.STATUS, "status");
+    }
+
+    // Returned by legacy() for a filter that has no legacy equivalent
+    private static final Object UNSUPPORTED = new Object();
+
+    // Every ride has a passenger, so these tell the two formats apart
+    private static final Document COMPACT = new Document(Ride.PASSENGER, new Document("$exists", true));
+    private static final Document LEGACY = new Document("passengerUsername", new Document("$exists", true));
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Autowired
+    private RideSchemaMigration rideSchemaMigration;
+
+    public List<Ride> find(Query query) {
+        if (rideSchemaMigration.isDone()) {
+            return mongoTemplate.find(query, Ride.class);
+        }
+        return mongoTemplate.find(bothSchemas(query), Document.class, collection()).stream()
+                .map(this::read)
+                .toList();
+    }
+
+    // The caller must close the stream
+    public Stream<Ride> stream(Query query) {
+        if (rideSchemaMigration.isDone()) {
+            return mongoTemplate.stream(query, Ride.class);
+        }
+        return mongoTemplate.stream(bothSchemas(query), Document.class, collection()).map(this::read);
+    }
+
+    public Flux<Ride> flux(Query query) {
+        if (rideSchemaMigration.isDone()) {
+            return reactiveMongoTemplate.find(query, Ride.class);
+        }
+        return reactiveMongoTemplate.find(bothSchemas(query), Document.class, collection()).map(this::read);
+    }
+
+    // The mapped query as a BasicQuery on stored names; Document results skip mapping again
+    private Query bothSchemas(Query query) {
+        MongoConverter converter = mongoTemplate.getConverter();
+        MongoPersistentEntity<?> entity = converter.getMappingContext().getPersistentEntity(Ride.class);
+        QueryMapper mapper = new QueryMapper(converter);
+
+        Document filter = mapper.getMappedObject(query.getQueryObject(), entity);
+        Document fields = mapper.getMappedFields(query.getFieldsObject(), entity);
+
+        BasicQuery widened = new BasicQuery(widenFilter(filter), widenFields(fields));
+        widened.setSortObject(mapper.getMappedSort(query.getSortObject(), entity));
+        widened.skip(query.getSkip()).limit(query.getLimit());
+        if (query.getMeta().getCursorBatchSize() != null) {
+            widened.cursorBatchSize(query.getMeta().getCursorBatchSize());
+        }
+        return widened;
+    }
+
+    private Ride read(Document document) {
+        if (RideSchemaMigration.isLegacy(document)) {
+            RideSchemaMigration.upgrade(document);
+        }
+        return mongoTemplate.getConverter().read(Ride.class, document);
+    }
+
+    private String collection() {
+        return mongoTemplate.getCollectionName(Ride.class);
+    }
+
+    static Document widenFilter(Document filter) {
+        if (filter.isEmpty()) {
+            return filter;
+        }
+        Object legacy = legacy(filter);
+        if (legacy == UNSUPPORTED) {
+            return filter;
+        }
+        return new Document("$or", List.of(
+                new Document("$and", List.of(filter, COMPACT)),
+                new Document("$and", List.of(legacy, LEGACY))));
+    }
+
+    // A projection on compact names also includes (or excludes) the legacy names
+    static Document widenFields(Document fields) {
+        Document widened = new Document(fields);
+        fields.forEach((field, value) -> {
+            String legacy = LEGACY_NAMES.get(field);
+            if (legacy != null) {
+                widened.put(legacy, value);
+            }
+        });
+        return widened;
+    }
+
+    // The same filter on legacy names with status names instead of codes, or UNSUPPORTED
+    // when it can't be expressed that way. Only field names at the top level and inside
+    // $and/$or/$nor are renamed; conditions are copied as they are.
+    private static Object legacy(Document filter) {
+        Document converted = new Document();
+        for (Map.Entry<String, Object> entry : filter.entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+
+            if (key.equals("$and") || key.equals("$or") || key.equals("$nor")) {
+                List<Object> clauses = new ArrayList<>();
+                for (Object clause : (List<?>) value) {
+                    Object legacy = clause instanceof Document document ? legacy(document) : UNSUPPORTED;
+                    if (legacy == UNSUPPORTED) {
+                        return UNSUPPORTED;
+                    }
+                    clauses.add(legacy);
+                }
+                converted.put(key, clauses);
+            } else if (key.startsWith("$") || usesNear(value)) {
+                // $expr, $text and friends, and $near/$nearSphere, which $or doesn't allow
+                return UNSUPPORTED;
+            } else {
+                int dot = key.indexOf('.');
+                String head = dot < 0 ? key : key.substring(0, dot);
+                String legacyHead = LEGACY_NAMES.getOrDefault(head, head);
+                converted.put(dot < 0 ? legacyHead : legacyHead + key.substring(dot),
+                        Ride.STATUS.equals(head) ? statusNames(value) : value);
+            }
+        }
+        return converted;
+    }
+
+    private static boolean usesNear(Object condition) {
+        return condition instanceof Document document
+                && (document.containsKey("$near") || document.containsKey("$nearSphere"));
+    }
+
+    // Status codes anywhere in a condition ({s: 1}, {s: {$in: [1, 2]}}) become names
+    private static Object statusNames(Object value) {
+        if (value instanceof Integer code) {
+            return RideStatus.fromCode(code).name();
+        }
+        if (value instanceof List<?> list) {
+            return list.stream().map(RideReader::statusNames).toList();
+        }
+        if (value instanceof Document document) {
+            Document converted = new Document();
+            document.forEach((key, operand) -> converted.put(key, statusNames(operand)));
+            return converted;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,253 @@
+package org.example.uberbackend.service;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.WriteModel;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.example.uberbackend.model.Ride;
+import org.example.uberbackend.model.RideStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Rewrites rides from the original schema (long field names, status string,
+// createdDate + createdAt) into the compact one declared on Ride.
+//
+// Online and resumable: legacy rides are converted on a background thread in _id
+// batches while the app serves traffic, and progress is checkpointed in the migrations
+// collection, so a restart continues after the last finished batch. Until isDone(),
+// RideReader runs every ride query against both the old and the new field names and
+// LegacyRideDocumentListener upgrades legacy documents as they are loaded. Writes to
+// an existing ride call convert() first, so status updates only ever see the new format.
+// Each ride is replaced only while it still has legacy fields: a ride converted (and
+// then updated) by convert() in the meantime is never overwritten with a stale copy.
+@Component
+public class RideSchemaMigration implements ApplicationRunner {
+
+    public static final String MIGRATIONS = "migrations";
+    public static final String NAME = "rides-compact-schema";
+
+    // Legacy field -> compact field; status and createdDate need more than a rename
+    public static final Map<String, String> RENAMES = new LinkedHashMap<>();
+
+    static {
+        RENAMES.put("passengerUsername", Ride.PASSENGER);
+        RENAMES.put("driverUsername", Ride.DRIVER);
+        RENAMES.put("pickupLocation", Ride.PICKUP_LOCATION);
+        RENAMES.put("dropLocation", Ride.DROP_LOCATION);
+        RENAMES.put("fare", Ride.FARE);
+        RENAMES.put("distanceKm", Ride.DISTANCE_KM);
+        RENAMES.put("createdAt", Ride.CREATED_AT);
+        RENAMES.put("locationTokens", Ride.LOCATION_TOKENS);
+        RENAMES.put("pickupPoint", Ride.PICKUP_POINT);
+        RENAMES.put("dropPoint", Ride.DROP_POINT);
+    }
+
+    private static final String LEGACY_STATUS = "status";
+    private static final String LEGACY_CREATED_DATE = "createdDate";
+
+    // Index names from the original schema; dropped once no document needs them
+    private static final List<String> LEGACY_INDEXES = List.of(
+            "passenger_status", "driver_status", "status_createdAt", "createdAt", "createdDate",
+            "distanceKm", "fare", "pickupPoint", "dropPoint", "locationTokens");
+
+    private static final Logger log = LoggerFactory.getLogger(RideSchemaMigration.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${rides.migration.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rides.migration.batch-size:1000}")
+    private int batchSize;
+
+    // Pause between batches so the migration doesn't compete with live traffic
+    @Value("${rides.migration.pause-ms:50}")
+    private long pauseMillis;
+
+    private volatile boolean done;
+    private volatile boolean running;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        running = true;
+        Thread.ofPlatform().daemon(true).name("ride-schema-migration").start(this::resume);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+    }
+
+    // False while rides may still be stored in the old format
+    public boolean isDone() {
+        return done;
+    }
+
+    // Converts one ride now, ahead of the background walk. Used before writes that
+    // match on the new field names; a no-op for rides that are already converted.
+    public void convert(String rideId) {
+        if (done) {
+            return;
+        }
+        Object id = ObjectId.isValid(rideId) ? new ObjectId(rideId) : rideId;
+        Document ride = rides().find(Filters.and(Filters.eq("_id", id), legacy())).first();
+        if (ride != null) {
+            upgrade(ride);
+            rides().replaceOne(Filters.and(Filters.eq("_id", id), legacy()), ride);
+        }
+    }
+
+    // A failure is logged and leaves the migration unfinished: reads stay on both
+    // schemas and the next start resumes from the last checkpoint
+    void resume() {
+        try {
+            Document state = checkpoint();
+            done = state.getBoolean("done", false);
+            if (done) {
+                return;
+            }
+            if (!enabled) {
+                log.warn("Ride schema migration is disabled and not finished; ride queries keep "
+                        + "matching both the old and the new field names until it has run");
+                return;
+            }
+            migrate(state);
+        } catch (RuntimeException e) {
+            log.error("Ride schema migration stopped; it resumes from the last checkpoint on the next start", e);
+        }
+    }
+
+    private void migrate(Document state) {
+        Object lastId = state.get("lastId");
+        long migrated = state.get("migrated", Number.class) == null ? 0 : state.get("migrated", Number.class).longValue();
+        log.info("Ride schema migration: {} from {}", lastId == null ? "starting" : "resuming", lastId);
+
+        MongoCollection<Document> rides = rides();
+        while (running) {
+            Bson pending = lastId == null ? legacy() : Filters.and(Filters.gt("_id", lastId), legacy());
+            List<Document> batch = rides.find(pending)
+                    .sort(Sorts.ascending("_id"))
+                    .limit(batchSize)
+                    .into(new ArrayList<>());
+            if (batch.isEmpty()) {
+                finish(migrated);
+                return;
+            }
+
+            List<WriteModel<Document>> writes = new ArrayList<>(batch.size());
+            for (Document ride : batch) {
+                upgrade(ride);
+                if (ride.containsKey(LEGACY_STATUS)) {
+                    log.warn("Ride {} has unknown status '{}'; kept under '{}' for manual repair",
+                            ride.get("_id"), ride.get(LEGACY_STATUS), LEGACY_STATUS);
+                }
+                writes.add(new ReplaceOneModel<>(Filters.and(Filters.eq("_id", ride.get("_id")), legacy()), ride));
+            }
+            migrated += rides.bulkWrite(writes, new BulkWriteOptions().ordered(false)).getModifiedCount();
+
+            lastId = batch.get(batch.size() - 1).get("_id");
+            saveCheckpoint(new Document("lastId", lastId).append("migrated", migrated).append("done", false));
+            pause();
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(pauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private void finish(long migrated) {
+        MongoCollection<Document> rides = rides();
+        List<String> existing = new ArrayList<>();
+        rides.listIndexes().forEach(index -> existing.add(index.getString("name")));
+        for (String name : LEGACY_INDEXES) {
+            if (existing.contains(name)) {
+                rides.dropIndex(name);
+            }
+        }
+
+        saveCheckpoint(new Document("migrated", migrated).append("done", true).append("finishedAt", new Date()));
+        done = true;
+        log.info("Ride schema migration finished: {} rides converted", migrated);
+    }
+
+    // Converts one document in place. A value already stored under the short name wins.
+    // A status that isn't a ride status in any letter case stays under "status", so
+    // nothing is lost; the ride then simply has no status until it is repaired.
+    public static void upgrade(Document document) {
+        RENAMES.forEach((legacy, compact) -> {
+            if (document.containsKey(legacy)) {
+                Object value = document.remove(legacy);
+                if (value != null) {
+                    document.putIfAbsent(compact, value);
+                }
+            }
+        });
+
+        Object status = document.get(LEGACY_STATUS);
+        RideStatus parsed = status instanceof String ? RideStatus.lookup((String) status) : null;
+        if (parsed != null || status == null) {
+            document.remove(LEGACY_STATUS);
+        }
+        if (parsed != null) {
+            document.putIfAbsent(Ride.STATUS, parsed.getCode());
+        }
+        document.remove(LEGACY_CREATED_DATE);
+    }
+
+    public static boolean isLegacy(Document document) {
+        if (document.containsKey(LEGACY_STATUS) || document.containsKey(LEGACY_CREATED_DATE)) {
+            return true;
+        }
+        for (String field : RENAMES.keySet()) {
+            if (document.containsKey(field)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Matches documents that still carry any legacy field (the same test as isLegacy)
+    private static Bson legacy() {
+        List<Bson> fields = new ArrayList<>();
+        fields.add(Filters.exists(LEGACY_STATUS));
+        fields.add(Filters.exists(LEGACY_CREATED_DATE));
+        RENAMES.keySet().forEach(field -> fields.add(Filters.exists(field)));
+        return Filters.or(fields);
+    }
+
+    private Document checkpoint() {
+        Document state = mongoTemplate.findById(NAME, Document.class, MIGRATIONS);
+        return state != null ? state : new Document("_id", NAME);
+    }
+
+    private void saveCheckpoint(Document state) {
+        mongoTemplate.save(state.append("_id", NAME).append("updatedAt", new Date()), MIGRATIONS);
+    }
+
+    private MongoCollection<Document> rides() {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Ride.class));
+    }
+}
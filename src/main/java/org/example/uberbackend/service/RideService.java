@@ -1,199 +1,406 @@
 package org.example.uberbackend.service;
 
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PostConstruct;
+import org.bson.types.ObjectId;
+import org.example.uberbackend.dto.BatchItemResult;
+import org.example.uberbackend.dto.RideEvent;
+import org.example.uberbackend.dto.RidePage;
+import org.example.uberbackend.model.GeoLocation;
 import org.example.uberbackend.model.Ride;
+import org.example.uberbackend.model.RideStatus;
 import org.example.uberbackend.repository.RideRepository;
+import org.example.uberbackend.util.LocationTokenizer;
+import org.example.uberbackend.util.RideCursor;
+import org.example.uberbackend.util.RideFields;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 @Service
 public class RideService {
 
+    private static final int STREAM_BATCH_SIZE = 500;
+    private static final int MAX_BATCH_SIZE = 1000;
+
     @Autowired
     private RideRepository rideRepository;
 
     @Autowired
     private MongoTemplate mongoTemplate;
 
+    @Autowired
+    private RideStatsService rideStatsService;
+
+    @Autowired
+    private OpenRideQueue openRideQueue;
+
+    @Autowired
+    private RideWriteBuffer rideWriteBuffer;
+
+    @Autowired
+    private RideEventBus rideEventBus;
+
+    @Autowired
+    private RideVersionService rideVersionService;
+
+    @Autowired
+    private RideReader rideReader;
+
+    @Autowired
+    private RideSchemaMigration rideSchemaMigration;
+
+    @PostConstruct
+    void startWriteBuffer() {
+        rideWriteBuffer.start(this::insertAll, this::afterCreated);
+    }
+
     public Ride createRide(String passengerUsername, Ride ride) {
+        prepareNewRide(passengerUsername, ride);
+
+        if (rideWriteBuffer.isEnabled()) {
+            return rideWriteBuffer.submit(ride);
+        }
+
+        Ride saved = rideRepository.save(ride);
+        afterCreated(List.of(saved));
+        return saved;
+    }
+
+    // Inserts many rides with one unordered bulk write; each item gets its own result
+    public List<BatchItemResult> createRides(String passengerUsername, List<Ride> rides) {
+        if (rides.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A batch can contain at most " + MAX_BATCH_SIZE + " rides");
+        }
+
+        BatchItemResult[] results = new BatchItemResult[rides.size()];
+        List<Ride> toInsert = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+
+        for (int i = 0; i < rides.size(); i++) {
+            Ride ride = rides.get(i);
+            if (ride == null) {
+                results[i] = BatchItemResult.failed(i, "Ride must not be null");
+                continue;
+            }
+            prepareNewRide(passengerUsername, ride);
+            toInsert.add(ride);
+            positions.add(i);
+        }
+
+        List<String> errors = insertAll(toInsert);
+
+        List<Ride> created = new ArrayList<>();
+        for (int j = 0; j < toInsert.size(); j++) {
+            int index = positions.get(j);
+            if (errors.get(j) == null) {
+                results[index] = BatchItemResult.created(index, toInsert.get(j).getId());
+                created.add(toInsert.get(j));
+            } else {
+                results[index] = BatchItemResult.failed(index, errors.get(j));
+            }
+        }
+
+        afterCreated(created);
+        return Arrays.asList(results);
+    }
+
+    // One $in query for many ids; results follow the request order and skip unknown ids
+    public List<Ride> getRidesByIds(List<String> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + MAX_BATCH_SIZE + " ids can be fetched at once");
+        }
+
+        Map<String, Ride> byId = new HashMap<>();
+        for (Ride ride : rideReader.find(RideQueries.byIds(ids))) {
+            byId.put(ride.getId(), ride);
+        }
+
+        List<Ride> rides = new ArrayList<>();
+        for (String id : new LinkedHashSet<>(ids)) {
+            Ride ride = byId.get(id);
+            if (ride != null) {
+                rides.add(ride);
+            }
+        }
+        return rides;
+    }
+
+    private void prepareNewRide(String passengerUsername, Ride ride) {
         ride.setPassengerUsername(passengerUsername);
-        ride.setStatus("REQUESTED");
-        ride.setCreatedDate(LocalDate.now());
+        ride.setStatus(RideStatus.REQUESTED);
         ride.setCreatedAt(LocalDateTime.now());
-        return rideRepository.save(ride);
+        ride.setLocationTokens(LocationTokenizer.indexTokens(ride.getPickupLocation(), ride.getDropLocation()));
+    }
+
+    // Unordered bulk insert. Ids are assigned up front (unless the write buffer already
+    // did) so every item can be reported on; returns one entry per ride: null when
+    // inserted, else the write error.
+    private List<String> insertAll(List<Ride> rides) {
+        List<String> errors = new ArrayList<>(Collections.nCopies(rides.size(), null));
+        if (rides.isEmpty()) {
+            return errors;
+        }
+
+        for (Ride ride : rides) {
+            if (ride.getId() == null) {
+                ride.setId(new ObjectId().toHexString());
+            }
+        }
+
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Ride.class)
+                    .insert(rides)
+                    .execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                errors.set(error.getIndex(), error.getMessage());
+            }
+        }
+        return errors;
+    }
+
+    private void afterCreated(List<Ride> created) {
+        if (created.isEmpty()) {
+            return;
+        }
+        rideVersionService.bump(created);
+        rideStatsService.onCreated(created);
+        created.forEach(openRideQueue::offer);
+        rideEventBus.publishCreated(created);
     }
 
-    @Transactional
     public Ride acceptRide(String rideId, String driverUsername) {
-        Ride ride = rideRepository.findById(rideId)
-                .orElseThrow(() -> new RuntimeException("Ride not found"));
+        Query query = new Query(Criteria.where("id").is(rideId).and("status").is(RideStatus.REQUESTED));
+        Update update = new Update()
+                .set("driverUsername", driverUsername)
+                .set("status", RideStatus.ACCEPTED);
+
+        // Take the ride off the dispatch queue first so no other driver is offered it
+        Ride claimed = openRideQueue.claim(rideId);
+
+        Ride ride;
+        try {
+            ride = transition(rideId, query, update);
+        } catch (RuntimeException e) {
+            if (claimed != null) {
+                openRideQueue.offer(claimed);
+            }
+            throw e;
+        }
 
-        if (!"REQUESTED".equals(ride.getStatus())) {
-            throw new RuntimeException("Ride must be in REQUESTED status");
+        if (ride == null) {
+            throw rejectedTransition(rideId, "Ride must be in REQUESTED status");
         }
 
-        ride.setDriverUsername(driverUsername);
-        ride.setStatus("ACCEPTED");
-        return rideRepository.save(ride);
+        rideVersionService.bump(ride);
+        rideStatsService.onAccepted(ride);
+        rideEventBus.publish(RideEvent.Type.ACCEPTED, ride);
+        return ride;
     }
 
     public Ride completeRide(String rideId, String username) {
-        Ride ride = rideRepository.findById(rideId)
-                .orElseThrow(() -> new RuntimeException("Ride not found"));
-
-        if (!"ACCEPTED".equals(ride.getStatus())) {
-            throw new RuntimeException("Ride must be ACCEPTED to complete");
+        Query query = new Query(new Criteria().andOperator(
+            Criteria.where("id").is(rideId).and("status").is(RideStatus.ACCEPTED),
+            new Criteria().orOperator(
+                Criteria.where("driverUsername").is(username),
+                Criteria.where("passengerUsername").is(username)
+            )
+        ));
+        Update update = new Update().set("status", RideStatus.COMPLETED);
+
+        Ride ride = transition(rideId, query, update);
+        if (ride == null) {
+            Ride current = rideRepository.findById(rideId)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Ride not found"));
+
+            if (current.getStatus() != RideStatus.ACCEPTED) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Ride must be ACCEPTED to complete");
+            }
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    "Only the assigned driver or passenger can complete this ride");
         }
 
+        rideVersionService.bump(ride);
+        rideStatsService.onCompleted(ride);
+        rideEventBus.publish(RideEvent.Type.COMPLETED, ride);
+        return ride;
+    }
 
-        if (!username.equals(ride.getDriverUsername()) && !username.equals(ride.getPassengerUsername())) {
-            throw new RuntimeException("Only the assigned driver or passenger can complete this ride");
+    // Conditional status transition: the query carries id + expected status + actor,
+    // so the check and the write happen in one findAndModify round trip.
+    // Returns null when nothing matched (lost race, wrong status or wrong actor).
+    private Ride transition(String rideId, Query query, Update update) {
+        // The query names the new fields only; a ride the migration hasn't reached yet is converted first
+        rideSchemaMigration.convert(rideId);
+        return mongoTemplate.findAndModify(
+            query, update, FindAndModifyOptions.options().returnNew(true), Ride.class
+        );
+    }
+
+    // Only reached on the failure path, so the extra lookup never costs the happy path.
+    private ResponseStatusException rejectedTransition(String rideId, String conflictMessage) {
+        if (!rideRepository.existsById(rideId)) {
+            return new ResponseStatusException(HttpStatus.NOT_FOUND, "Ride not found");
         }
+        return new ResponseStatusException(HttpStatus.CONFLICT, conflictMessage);
+    }
 
-        ride.setStatus("COMPLETED");
-        return rideRepository.save(ride);
+    public List<Ride> getAllRides(RideFields fields) {
+        return find(RideQueries.all(), fields);
     }
 
-    public List<Ride> getAllRides() {
-        return rideRepository.findAll();
+    // Cursor-backed variant of getAllRides for NDJSON export. The caller must close the stream.
+    public Stream<Ride> streamAllRides() {
+        return stream(RideQueries.all());
     }
 
 
-    // API 1: Search rides by pickup OR drop (Regex + Case-insensitive)
-    public List<Ride> searchRides(String text) {
-        Criteria criteria = new Criteria().orOperator(
-            Criteria.where("pickupLocation").regex(text, "i"),
-            Criteria.where("dropLocation").regex(text, "i")
-        );
-        Query query = new Query(criteria);
-        return mongoTemplate.find(query, Ride.class);
+    // API 1: Search rides by pickup OR drop (indexed word-prefix tokens)
+    public List<Ride> searchRides(String text, RideFields fields) {
+        return find(RideQueries.search(text), fields);
     }
 
-    // API 2: Filter rides by distance range
-    public List<Ride> filterByDistance(Double min, Double max) {
-        if (min < 0 || max < 0) {
-            throw new RuntimeException("Distance values cannot be negative");
-        }
+    public Stream<Ride> streamSearchRides(String text) {
+        return stream(RideQueries.search(text));
+    }
 
-        if (min > max) {
-            throw new RuntimeException("Minimum distance cannot be greater than maximum distance");
-        }
+    // API 2: Filter rides by distance range
+    public List<Ride> filterByDistance(Double min, Double max, RideFields fields) {
+        return find(RideQueries.distanceRange(min, max), fields);
+    }
 
-        Criteria criteria = Criteria.where("distanceKm").gte(min).lte(max);
-        Query query = new Query(criteria);
-        return mongoTemplate.find(query, Ride.class);
+    public Stream<Ride> streamFilterByDistance(Double min, Double max) {
+        return stream(RideQueries.distanceRange(min, max));
     }
 
     // API 3: Filter rides by date range
-    public List<Ride> filterByDateRange(LocalDate start, LocalDate end) {
-        Criteria criteria = Criteria.where("createdDate").gte(start).lte(end);
-        Query query = new Query(criteria);
-        return mongoTemplate.find(query, Ride.class);
+    public List<Ride> filterByDateRange(LocalDate start, LocalDate end, RideFields fields) {
+        return find(RideQueries.dateRange(start, end), fields);
+    }
+
+    public Stream<Ride> streamFilterByDateRange(LocalDate start, LocalDate end) {
+        return stream(RideQueries.dateRange(start, end));
     }
 
     // API 4: Sort rides by fare
-    public List<Ride> sortByFare(String order) {
-        Sort.Direction direction = "asc".equalsIgnoreCase(order)
-            ? Sort.Direction.ASC
-            : Sort.Direction.DESC;
-        Query query = new Query().with(Sort.by(direction, "fare"));
-        return mongoTemplate.find(query, Ride.class);
+    public List<Ride> sortByFare(String order, RideFields fields) {
+        return find(RideQueries.sortedByFare(order), fields);
+    }
+
+    public Stream<Ride> streamSortByFare(String order) {
+        return stream(RideQueries.sortedByFare(order));
     }
 
     // API 5: Get rides for user (simple equality)
-    public List<Ride> getRidesByUser(String userId) {
-        Criteria criteria = Criteria.where("passengerUsername").is(userId);
-        Query query = new Query(criteria);
-        return mongoTemplate.find(query, Ride.class);
+    public List<Ride> getRidesByUser(String userId, RideFields fields) {
+        return find(RideQueries.byUser(userId), fields);
     }
 
     // API 6: Get rides for user by status (AND query)
-    public List<Ride> getRidesByUserAndStatus(String userId, String status) {
-        Criteria criteria = Criteria.where("passengerUsername").is(userId)
-                                   .and("status").is(status);
-        Query query = new Query(criteria);
-        return mongoTemplate.find(query, Ride.class);
+    public List<Ride> getRidesByUserAndStatus(String userId, String status, RideFields fields) {
+        return find(RideQueries.byUserAndStatus(userId, status), fields);
     }
 
     // API 7: Driver's active rides
-    public List<Ride> getDriverActiveRides(String driverId) {
-        Criteria criteria = Criteria.where("driverUsername").is(driverId)
-                                   .and("status").in("REQUESTED", "ACCEPTED");
-        Query query = new Query(criteria);
-        return mongoTemplate.find(query, Ride.class);
+    public List<Ride> getDriverActiveRides(String driverId, RideFields fields) {
+        return find(RideQueries.driverActive(driverId), fields);
     }
 
     // API 8: Filter rides by status + keyword (AND + OR combo)
-    public List<Ride> filterByStatusAndKeyword(String status, String search) {
-        Criteria statusCriteria = Criteria.where("status").is(status);
-        Criteria searchCriteria = new Criteria().orOperator(
-            Criteria.where("pickupLocation").regex(search, "i"),
-            Criteria.where("dropLocation").regex(search, "i")
-        );
-
-        Criteria combined = new Criteria().andOperator(statusCriteria, searchCriteria);
-        Query query = new Query(combined);
-        return mongoTemplate.find(query, Ride.class);
+    public List<Ride> filterByStatusAndKeyword(String status, String search, RideFields fields) {
+        return find(RideQueries.statusAndKeyword(status, search), fields);
     }
 
     // API 9: Advanced search with pagination + sorting
     public List<Ride> advancedSearch(String search, String status,
                                     String sortBy, String order,
-                                    int page, int size) {
-        Criteria criteria = new Criteria();
-
-        if (search != null && !search.isEmpty()) {
-            criteria = new Criteria().orOperator(
-                Criteria.where("pickupLocation").regex(search, "i"),
-                Criteria.where("dropLocation").regex(search, "i")
-            );
-        }
-
-        if (status != null && !status.isEmpty()) {
-            if (search != null && !search.isEmpty()) {
-                Criteria searchCrit = new Criteria().orOperator(
-                    Criteria.where("pickupLocation").regex(search, "i"),
-                    Criteria.where("dropLocation").regex(search, "i")
-                );
-                criteria = new Criteria().andOperator(
-                    Criteria.where("status").is(status),
-                    searchCrit
-                );
-            } else {
-                criteria = Criteria.where("status").is(status);
-            }
-        }
+                                    int page, int size, RideFields fields) {
+        Query query = RideQueries.advancedSearch(search, status, sortBy, order);
 
-        Query query = new Query(criteria);
+        Pageable pageable = PageRequest.of(page, size);
+        query.with(pageable);
+
+        return find(query, fields);
+    }
 
-        if (sortBy != null && !sortBy.isEmpty()) {
-            Sort.Direction direction = "asc".equalsIgnoreCase(order)
-                ? Sort.Direction.ASC
-                : Sort.Direction.DESC;
-            query.with(Sort.by(direction, sortBy));
+    // API 9b: Advanced search with keyset (cursor) pagination
+    public RidePage advancedSearchPage(String search, String status,
+                                       String sortBy, String order,
+                                       String cursor, int size, RideFields fields) {
+        RideCursor after = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            after = RideCursor.decode(cursor);
+            // The cursor pins the ordering it was issued for
+            sortBy = after.getSortField();
+            order = after.getOrder();
         }
 
-        Pageable pageable = PageRequest.of(page, size);
-        query.with(pageable);
+        Query query = RideQueries.advancedSearchAfter(search, status, sortBy, order, after, size + 1);
+        if (fields != null) {
+            fields.applyTo(query);
+            // The next cursor is built from the sort keys of the last ride
+            query.getSortObject().keySet().forEach(key -> query.fields().include(key));
+        }
+        List<Ride> rides = rideReader.find(query);
+
+        if (rides.size() <= size) {
+            return new RidePage(RideFields.render(rides, fields), null);
+        }
 
-        return mongoTemplate.find(query, Ride.class);
+        List<Ride> page = rides.subList(0, size);
+        Ride last = page.get(size - 1);
+        return new RidePage(RideFields.render(page, fields), RideQueries.cursorAfter(last, sortBy, order).encode());
     }
 
     // API 10: Rides on specific date
-    public List<Ride> getRidesByDate(LocalDate date) {
-        Criteria criteria = Criteria.where("createdDate").is(date);
-        Query query = new Query(criteria);
-        return mongoTemplate.find(query, Ride.class);
+    public List<Ride> getRidesByDate(LocalDate date, RideFields fields) {
+        return find(RideQueries.onDate(date), fields);
+    }
+
+    // API 11: Rides with a pickup point near a location
+    public List<Ride> findNearby(GeoLocation location, double radiusKm, String status, int limit, RideFields fields) {
+        return find(RideQueries.nearby(location, radiusKm, status, limit), fields);
     }
-}
 
+    // API 12: Oldest open rides, served from the in-memory dispatch queue
+    public List<Ride> getOpenRides(int limit, GeoLocation area) {
+        String shard = area == null ? null : OpenRideQueue.areaOf(area.getLat(), area.getLng());
+        return openRideQueue.oldest(limit, shard);
+    }
+
+    // Runs a list query, reading only the requested fields when a fieldset is given
+    private List<Ride> find(Query query, RideFields fields) {
+        if (fields != null) {
+            fields.applyTo(query);
+        }
+        return rideReader.find(query);
+    }
 
+    private Stream<Ride> stream(Query query) {
+        query.cursorBatchSize(STREAM_BATCH_SIZE);
+        return rideReader.stream(query);
+    }
+}
@@ -0,0 +1,273 @@
+package org.example.uberbackend.service;
+
+import org.bson.Document;
+import org.example.uberbackend.model.Ride;
+import org.example.uberbackend.model.RideStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// Summary documents kept in step with ride transitions via $inc, so analytics
+// reads are single-document lookups instead of aggregations over all rides.
+@Service
+public class RideStatsService {
+
+    public static final String DRIVER_STATS = "driver_stats";
+    public static final String PASSENGER_STATS = "passenger_stats";
+    public static final String DAILY_STATS = "daily_ride_stats";
+    public static final String STATUS_STATS = "ride_status_stats";
+
+    private static final Logger log = LoggerFactory.getLogger(RideStatsService.class);
+    private static final List<String> COLLECTIONS = List.of(DRIVER_STATS, PASSENGER_STATS, DAILY_STATS, STATUS_STATS);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RideSchemaMigration rideSchemaMigration;
+
+    // ===== INCREMENTAL UPDATES =====
+    // The ride write has already succeeded when these run; a failure here is logged
+    // rather than surfaced, and any drift is repaired by rebuild().
+
+    public void onCreated(List<Ride> rides) {
+        try {
+            Map<Object, Integer> perDay = new HashMap<>();
+            for (Ride ride : rides) {
+                perDay.merge(ride.getCreatedDate(), 1, Integer::sum);
+            }
+
+            BulkOperations daily = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, DAILY_STATS);
+            perDay.forEach((day, count) ->
+                daily.upsert(new Query(Criteria.where("_id").is(day)), new Update().inc("ridesCount", count)));
+            daily.execute();
+
+            inc(STATUS_STATS, RideStatus.REQUESTED.name(), new Update().inc("ridesCount", rides.size()));
+        } catch (RuntimeException e) {
+            log.error("Failed to update stats for {} created rides", rides.size(), e);
+        }
+    }
+
+    public void onAccepted(Ride ride) {
+        try {
+            moveStatus(RideStatus.REQUESTED, RideStatus.ACCEPTED);
+
+            Update driver = new Update()
+                    .inc("totalRides", 1)
+                    .inc("totalFare", valueOrZero(ride.getFare()));
+            if (ride.getDistanceKm() != null) {
+                driver.inc("distanceSum", ride.getDistanceKm()).inc("distanceCount", 1);
+            }
+            inc(DRIVER_STATS, ride.getDriverUsername(), driver);
+        } catch (RuntimeException e) {
+            log.error("Failed to update stats for accepted ride {}", ride.getId(), e);
+        }
+    }
+
+    public void onCompleted(Ride ride) {
+        try {
+            moveStatus(RideStatus.ACCEPTED, RideStatus.COMPLETED);
+
+            double fare = valueOrZero(ride.getFare());
+            inc(DRIVER_STATS, ride.getDriverUsername(), new Update()
+                    .inc("completedRides", 1)
+                    .inc("earnings", fare));
+            inc(PASSENGER_STATS, ride.getPassengerUsername(), new Update()
+                    .inc("totalCompletedRides", 1)
+                    .inc("totalSpent", fare));
+        } catch (RuntimeException e) {
+            log.error("Failed to update stats for completed ride {}", ride.getId(), e);
+        }
+    }
+
+    private void inc(String collection, Object key, Update update) {
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(key)), update, collection);
+    }
+
+    // Status counters are keyed by name, as the status summary reports them
+    private void moveStatus(RideStatus from, RideStatus to) {
+        mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, STATUS_STATS)
+                .upsert(new Query(Criteria.where("_id").is(from.name())), new Update().inc("ridesCount", -1))
+                .upsert(new Query(Criteria.where("_id").is(to.name())), new Update().inc("ridesCount", 1))
+                .execute();
+    }
+
+    private static double valueOrZero(Double value) {
+        return value != null ? value : 0.0;
+    }
+
+    // ===== REBUILD =====
+
+    // Recomputes every summary from the rides collection, reports where the stored
+    // counters disagree, and (unless dryRun) replaces them with the recomputed ones.
+    // Counters are replaced per _id rather than wiped and reinserted, so readers never
+    // see an empty collection, but an $inc landing between the aggregation and the
+    // replace is still overwritten; run it when traffic is quiet.
+    // The pipelines run untyped, so they use the stored field names and status codes;
+    // until the schema migration is done they would miss every unconverted ride.
+    public Document rebuild(boolean dryRun) {
+        if (!rideSchemaMigration.isDone()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Ride schema migration has not finished; rebuild would undercount");
+        }
+
+        int completed = RideStatus.COMPLETED.getCode();
+
+        Map<String, List<Document>> expected = new HashMap<>();
+        expected.put(DRIVER_STATS, aggregate(Aggregation.newAggregation(
+            Aggregation.match(Criteria.where(Ride.DRIVER).ne(null)),
+            Aggregation.group(Ride.DRIVER)
+                .count().as("totalRides")
+                .sum(ConditionalOperators.when(Criteria.where(Ride.STATUS).is(completed))
+                    .then(1).otherwise(0)).as("completedRides")
+                .sum(Ride.DISTANCE_KM).as("distanceSum")
+                .sum(isNumber(Ride.DISTANCE_KM)).as("distanceCount")
+                .sum(Ride.FARE).as("totalFare")
+                .sum(ConditionalOperators.when(Criteria.where(Ride.STATUS).is(completed))
+                    .thenValueOf(Ride.FARE).otherwise(0)).as("earnings")
+        )));
+        expected.put(PASSENGER_STATS, aggregate(Aggregation.newAggregation(
+            Aggregation.match(Criteria.where(Ride.STATUS).is(completed)),
+            Aggregation.group(Ride.PASSENGER)
+                .count().as("totalCompletedRides")
+                .sum(Ride.FARE).as("totalSpent")
+        )));
+        // Same key as onCreated: the local day of createdAt, stored as that day's midnight
+        expected.put(DAILY_STATS, aggregate(Aggregation.newAggregation(
+            Aggregation.project().and(startOfDay(Ride.CREATED_AT)).as("day"),
+            Aggregation.group("day").count().as("ridesCount")
+        )));
+        List<Document> statuses = aggregate(Aggregation.newAggregation(
+            Aggregation.match(Criteria.where(Ride.STATUS).exists(true)),
+            Aggregation.group(Ride.STATUS).count().as("ridesCount")
+        ));
+        statuses.forEach(status -> status.put("_id", RideStatus.fromCode(((Number) status.get("_id")).intValue()).name()));
+        expected.put(STATUS_STATS, statuses);
+
+        Document report = new Document("dryRun", dryRun);
+        boolean consistent = true;
+
+        for (String collection : COLLECTIONS) {
+            List<Document> stored = mongoTemplate.findAll(Document.class, collection);
+            List<String> mismatches = diff(expected.get(collection), stored);
+            consistent &= mismatches.isEmpty();
+            report.append(collection, new Document("documents", expected.get(collection).size())
+                    .append("mismatches", mismatches));
+
+            if (!dryRun) {
+                replace(collection, expected.get(collection), stored);
+            }
+        }
+
+        log.info("Ride stats rebuild (dryRun={}): {}", dryRun, consistent ? "counters matched" : "mismatches found");
+        return report.append("consistent", consistent);
+    }
+
+    // Upserts each recomputed document by _id, then deletes the stored ids the
+    // aggregation no longer produced. Ids created by $inc after `stored` was read
+    // are left alone.
+    private void replace(String collection, List<Document> expected, List<Document> stored) {
+        Set<Object> keep = new HashSet<>();
+        if (!expected.isEmpty()) {
+            BulkOperations replace = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+            for (Document document : expected) {
+                keep.add(document.get("_id"));
+                replace.replaceOne(new Query(Criteria.where("_id").is(document.get("_id"))), document,
+                        FindAndReplaceOptions.options().upsert());
+            }
+            replace.execute();
+        }
+
+        List<Object> stale = stored.stream()
+                .map(document -> document.get("_id"))
+                .filter(id -> !keep.contains(id))
+                .toList();
+        if (!stale.isEmpty()) {
+            mongoTemplate.remove(new Query(Criteria.where("_id").in(stale)), collection);
+        }
+    }
+
+    private List<Document> aggregate(Aggregation aggregation) {
+        return new ArrayList<>(mongoTemplate.aggregate(aggregation, "rides", Document.class).getMappedResults());
+    }
+
+    // {$cond: [{$gt: ["$field", null]}, 1, 0]} - counts numeric values, skipping null and missing like $avg does
+    private static AggregationExpression isNumber(String field) {
+        return context -> new Document("$cond", Arrays.asList(
+            new Document("$gt", Arrays.asList("$" + field, null)), 1, 0
+        ));
+    }
+
+    // {$dateTrunc: {date: "$field", unit: "day", timezone: <server zone>}}
+    private static AggregationExpression startOfDay(String field) {
+        return context -> new Document("$dateTrunc", new Document("date", "$" + field)
+                .append("unit", "day")
+                .append("timezone", ZoneId.systemDefault().getId()));
+    }
+
+    // Ids whose stored counters differ from the recomputed ones (missing on either side counts)
+    private static List<String> diff(List<Document> expected, List<Document> actual) {
+        Map<Object, Document> stored = new HashMap<>();
+        for (Document document : actual) {
+            stored.put(document.get("_id"), document);
+        }
+
+        List<String> mismatches = new ArrayList<>();
+        for (Document document : expected) {
+            Document current = stored.remove(document.get("_id"));
+            if (current == null || !sameCounters(document, current)) {
+                mismatches.add(String.valueOf(document.get("_id")));
+            }
+        }
+        for (Document leftover : stored.values()) {
+            if (!allZero(leftover)) {
+                mismatches.add(String.valueOf(leftover.get("_id")));
+            }
+        }
+        return mismatches;
+    }
+
+    private static boolean sameCounters(Document expected, Document actual) {
+        for (String field : expected.keySet()) {
+            if (field.equals("_id")) {
+                continue;
+            }
+            if (Math.abs(number(expected.get(field)) - number(actual.get(field))) > 1e-6) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // A status counter that dropped back to zero has no counterpart in the aggregation
+    private static boolean allZero(Document document) {
+        return document.keySet().stream()
+                .filter(field -> !Objects.equals(field, "_id"))
+                .allMatch(field -> number(document.get(field)) == 0.0);
+    }
+
+    private static double number(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
+    }
+}
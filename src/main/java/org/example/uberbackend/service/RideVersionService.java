@@ -0,0 +1,176 @@
+package org.example.uberbackend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.example.uberbackend.model.Ride;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Change counters behind the ETags of ride and analytics reads. Every instance keeps
+// them in memory: RideService bumps them right after every write (the global counter
+// and those of the passenger and driver involved), and reads never leave the node.
+// sync() pushes the local increments to the ride_versions collection with one bulk
+// $inc and pulls the totals written by the other instances, every
+// rides.versions.sync-ms. A write on one instance therefore moves the ETags of the
+// others within about two sync intervals; until then they may still answer 304.
+// Per-user counters are striped over a fixed set of documents, so two users can
+// share one; that only costs an extra 200 now and then.
+// Each counter document records when it was created, so a dropped or restored
+// collection never reproduces a version that was handed out before. Counters not
+// pulled yet carry a marker of this process instead.
+@Component
+public class RideVersionService {
+
+    public static final String RIDE_VERSIONS = "ride_versions";
+
+    private static final int USER_STRIPES = 4096;
+    private static final String GLOBAL = "global";
+    // Moved by bumpAll(); part of every per-user version
+    private static final String ALL_USERS = "all";
+
+    private static final Logger log = LoggerFactory.getLogger(RideVersionService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final String processMarker = "p" + Long.toString(System.currentTimeMillis(), 36);
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public void bump(Ride ride) {
+        bump(List.of(ride));
+    }
+
+    public void bump(Iterable<Ride> rides) {
+        for (Ride ride : rides) {
+            counter(GLOBAL).add(1);
+            addUser(ride.getPassengerUsername());
+            addUser(ride.getDriverUsername());
+        }
+    }
+
+    // For changes that can't be attributed to users, e.g. an analytics rebuild:
+    // every per-user version moves as well, so no ETag issued so far matches again
+    public void bumpAll() {
+        counter(GLOBAL).add(1);
+        counter(ALL_USERS).add(1);
+    }
+
+    public String global() {
+        return counter(GLOBAL).version();
+    }
+
+    public String user(String username) {
+        return "u" + counter(ALL_USERS).version() + "." + counter(stripe(username)).version();
+    }
+
+    @Scheduled(fixedDelayString = "${rides.versions.sync-ms:1000}")
+    public void sync() {
+        push();
+        pull();
+    }
+
+    // Increments made since the last sync would otherwise be lost
+    @PreDestroy
+    void stop() {
+        push();
+    }
+
+    // Failures are logged rather than surfaced; the increments are kept for the next sync
+    private void push() {
+        Map<String, Long> deltas = new HashMap<>();
+        counters.forEach((id, counter) -> {
+            long delta = counter.pending.sumThenReset();
+            if (delta != 0) {
+                deltas.put(id, delta);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RIDE_VERSIONS);
+            String created = Long.toString(System.currentTimeMillis(), 36);
+            deltas.forEach((id, delta) -> bulk.upsert(new Query(Criteria.where("_id").is(id)),
+                    new Update().inc("n", delta).setOnInsert("since", created)));
+            bulk.execute();
+        } catch (RuntimeException e) {
+            deltas.forEach((id, delta) -> counter(id).pending.add(delta));
+            log.error("Failed to update ride versions {}", deltas.keySet(), e);
+        }
+    }
+
+    private void pull() {
+        try {
+            for (Document stored : mongoTemplate.findAll(Document.class, RIDE_VERSIONS)) {
+                counter(stored.get("_id").toString())
+                        .refresh(stored.getString("since"), stored.get("n", Number.class).longValue());
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to read ride versions", e);
+        }
+    }
+
+    private Counter counter(String id) {
+        return counters.computeIfAbsent(id, k -> new Counter(processMarker));
+    }
+
+    private void addUser(String username) {
+        if (username != null) {
+            counter(stripe(username)).add(1);
+        }
+    }
+
+    private static String stripe(String username) {
+        int hash = username.hashCode();
+        return "u" + ((hash ^ (hash >>> 16)) & (USER_STRIPES - 1));
+    }
+
+    private static final class Counter {
+
+        private volatile String since;
+        // Last total pulled from ride_versions
+        private volatile long stored;
+        // Local increments not pushed yet
+        private final LongAdder pending = new LongAdder();
+        // Highest value handed out; a push is in neither stored nor pending until the
+        // next pull, and this keeps the version from going back in between
+        private final AtomicLong shown = new AtomicLong();
+
+        Counter(String since) {
+            this.since = since;
+        }
+
+        void add(long count) {
+            pending.add(count);
+        }
+
+        String version() {
+            long n = shown.accumulateAndGet(stored + pending.sum(), Math::max);
+            return since + "." + n;
+        }
+
+        synchronized void refresh(String since, long n) {
+            stored = n;
+            if (!since.equals(this.since)) {
+                // A new document: its versions have never been handed out, so start over
+                shown.set(n + pending.sum());
+                this.since = since;
+            }
+        }
+    }
+}
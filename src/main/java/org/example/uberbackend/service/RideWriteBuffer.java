@@ -0,0 +1,235 @@
+package org.example.uberbackend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.example.uberbackend.model.Ride;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Group commit for ride creation: concurrent createRide calls are queued and a
+// single flusher thread writes them as one bulk insert once the batch is full or
+// the oldest entry has waited max-delay. Each caller still gets its own result.
+// Off by default (rides.group-commit.enabled).
+@Component
+public class RideWriteBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(RideWriteBuffer.class);
+
+    @Value("${rides.group-commit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${rides.group-commit.max-batch-size:64}")
+    private int maxBatchSize;
+
+    @Value("${rides.group-commit.max-delay-micros:2000}")
+    private long maxDelayMicros;
+
+    @Value("${rides.group-commit.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${rides.group-commit.timeout-ms:10000}")
+    private long timeoutMs;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private BlockingQueue<Pending> queue;
+    private Thread flusher;
+    private volatile boolean running;
+
+    // Writes a batch and returns one entry per ride: null when stored, else the error
+    private Function<List<Ride>, List<String>> writer;
+    // Side effects for the rides that were stored (stats, dispatch queue, events)
+    private Consumer<List<Ride>> afterWrite;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder bufferedRides = new LongAdder();
+    private final AtomicLong maxBatch = new AtomicLong();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized void start(Function<List<Ride>, List<String>> writer, Consumer<List<Ride>> afterWrite) {
+        if (!enabled || running) {
+            return;
+        }
+        this.writer = writer;
+        this.afterWrite = afterWrite;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.running = true;
+        Thread.Builder threads = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon(true);
+        this.flusher = threads.name("ride-group-commit").start(this::flushLoop);
+        log.info("Ride group commit enabled: batch <= {}, delay <= {}us", maxBatchSize, maxDelayMicros);
+    }
+
+    // Blocks until the ride's batch is written; fails fast with 503 when the buffer is full.
+    // The id is assigned before queueing: if the wait times out the ride may still be
+    // written, so the caller gets StillPendingException with that id instead of an
+    // error that invites a retry (and a duplicate ride).
+    public Ride submit(Ride ride) {
+        ride.setId(new ObjectId().toHexString());
+        Pending pending = new Pending(ride);
+        if (!running || !queue.offer(pending)) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Ride write buffer is full, retry shortly");
+        }
+
+        try {
+            return pending.result.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new StillPendingException(ride);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StillPendingException(ride);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long batchCount = batches.sum();
+        long rideCount = bufferedRides.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("queued", queue == null ? 0 : queue.size());
+        stats.put("batches", batchCount);
+        stats.put("rides", rideCount);
+        stats.put("avgBatchSize", batchCount == 0 ? 0.0 : (double) rideCount / batchCount);
+        stats.put("maxBatchSize", maxBatch.get());
+        stats.put("avgQueueWaitMicros", rideCount == 0 ? 0 : totalWaitNanos.sum() / rideCount / 1000);
+        stats.put("maxQueueWaitMicros", maxWaitNanos.get() / 1000);
+        return stats;
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (flusher != null) {
+            flusher.join(timeoutMs);
+        }
+    }
+
+    private void flushLoop() {
+        long maxDelayNanos = TimeUnit.MICROSECONDS.toNanos(maxDelayMicros);
+        // Keep draining after stop() so queued callers are not abandoned
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                List<Pending> batch = new ArrayList<>(maxBatchSize);
+                batch.add(first);
+                long deadline = first.enqueuedAt + maxDelayNanos;
+
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        long now = System.nanoTime();
+        List<Ride> rides = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            long waited = now - pending.enqueuedAt;
+            totalWaitNanos.add(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+            rides.add(pending.ride);
+        }
+        batches.increment();
+        bufferedRides.add(batch.size());
+        maxBatch.accumulateAndGet(batch.size(), Math::max);
+
+        List<String> errors;
+        try {
+            errors = writer.apply(rides);
+        } catch (RuntimeException e) {
+            log.error("Group commit of {} rides failed", batch.size(), e);
+            batch.forEach(pending -> pending.result.completeExceptionally(e));
+            return;
+        }
+
+        // The rows are written at this point: a failing side effect must not turn
+        // them into errors for the callers
+        List<Ride> written = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            if (errors.get(i) == null) {
+                written.add(rides.get(i));
+            }
+        }
+        try {
+            afterWrite.accept(written);
+        } catch (RuntimeException e) {
+            log.error("Post-write steps failed for {} stored rides", written.size(), e);
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            Pending pending = batch.get(i);
+            if (errors.get(i) == null) {
+                pending.result.complete(pending.ride);
+            } else {
+                pending.result.completeExceptionally(new RuntimeException(errors.get(i)));
+            }
+        }
+    }
+
+    // The ride was queued but its write didn't finish in time; it keeps the id it was given
+    public static class StillPendingException extends RuntimeException {
+        private final Ride ride;
+
+        public StillPendingException(Ride ride) {
+            super("Ride " + ride.getId() + " is still being written");
+            this.ride = ride;
+        }
+
+        public Ride getRide() {
+            return ride;
+        }
+    }
+
+    private static final class Pending {
+        final Ride ride;
+        final long enqueuedAt = System.nanoTime();
+        final CompletableFuture<Ride> result = new CompletableFuture<>();
+
+        Pending(Ride ride) {
+            this.ride = ride;
+        }
+    }
+}
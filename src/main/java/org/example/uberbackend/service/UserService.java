@@ -1,26 +1,47 @@
 package org.example.uberbackend.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import org.example.uberbackend.model.User;
 import org.example.uberbackend.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 import java.util.List;
+import java.util.Set;
 
 @Service
-public class UserService implements UserDetailsService {
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private Cache<String, UserDetails> userDetailsCache;
+
+    // ROLE_ADMIN can't be self-assigned; admins are promoted directly in the users collection
+    private static final Set<String> SELF_SERVICE_ROLES = Set.of("ROLE_USER", "ROLE_DRIVER");
+
     public User register(String username, String password, String role) {
+        if (!SELF_SERVICE_ROLES.contains(role)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Role must be ROLE_USER or ROLE_DRIVER");
+        }
         if (userRepository.existsByUsername(username)) {
             throw new RuntimeException("Username already exists");
         }
@@ -29,7 +50,9 @@ public class UserService implements UserDetailsService {
         user.setUsername(username);
         user.setPassword(passwordEncoder.encode(password));
         user.setRole(role);
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        evictUser(username);
+        return saved;
     }
 
     @Override
@@ -44,6 +67,31 @@ public class UserService implements UserDetailsService {
         );
     }
 
+    // Called by Spring Security after a successful login when the stored hash used a
+    // different BCrypt cost than security.password.bcrypt-strength
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("username").is(user.getUsername())),
+                new Update().set("password", newPassword),
+                User.class
+        );
+        evictUser(user.getUsername());
+        return org.springframework.security.core.userdetails.User.withUserDetails(user)
+                .password(newPassword)
+                .build();
+    }
+
+    // Cached lookup for per-request authentication. Login keeps using
+    // loadUserByUsername so credentials are always checked against the database.
+    public UserDetails loadCachedUser(String username) {
+        return userDetailsCache.get(username, this::loadUserByUsername);
+    }
+
+    public void evictUser(String username) {
+        userDetailsCache.invalidate(username);
+    }
+
     public User findByUsername(String username) {
         return userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
@@ -0,0 +1,18 @@
+package org.example.uberbackend.util;
+
+import lombok.Value;
+import java.time.Duration;
+import java.time.Instant;
+
+// A cached value together with the time it was computed and the ride version
+// read just before computing it (the value reflects at least that version)
+@Value
+public class CachedResult<T> {
+    T value;
+    Instant computedAt;
+    String version;
+
+    public long getAgeSeconds() {
+        return Duration.between(computedAt, Instant.now()).getSeconds();
+    }
+}
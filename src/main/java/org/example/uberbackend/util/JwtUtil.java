@@ -1,49 +1,154 @@
 package org.example.uberbackend.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtil {
 
+    private static final Logger log = LoggerFactory.getLogger(JwtUtil.class);
+
     private final String SECRET = "mySecretKeyForJWTTokenGenerationAndValidation12345678";
-    private final long EXPIRATION = 86400000;
+
+    // Built once instead of per call. The secret is base64-decoded, as the
+    // String overloads of signWith/setSigningKey did, so issued tokens stay valid.
+    private final Key signingKey = new SecretKeySpec(
+            Decoders.BASE64.decode(SECRET), SignatureAlgorithm.HS256.getJcaName());
+    private final JwtParser parser = Jwts.parserBuilder()
+            .setSigningKey(signingKey)
+            .build();
+
+    @Autowired
+    private Cache<String, VerifiedToken> verifiedTokenCache;
+
+    // Access tokens are short-lived; clients renew them with a refresh token
+    @Value("${jwt.access.expiration-ms:900000}")
+    private long expirationMs;
+
+    // Old key, which deployments set to 24h; ignored so it can't silently keep long-lived tokens
+    @Value("${jwt.expiration:}")
+    private String legacyExpiration;
+
+    @Value("${jwt.verified-cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // jwt.verify{result}: cached = served from verifiedTokenCache, verified = signature
+    // checked, invalid = rejected token
+    private Timer cachedTimer;
+    private Timer verifiedTimer;
+    private Timer invalidTimer;
+
+    @PostConstruct
+    void registerMeters() {
+        if (legacyExpiration != null && !legacyExpiration.isEmpty()) {
+            log.warn("jwt.expiration is no longer read; access tokens expire after jwt.access.expiration-ms ({} ms)",
+                    expirationMs);
+        }
+        cachedTimer = verifyTimer("cached");
+        verifiedTimer = verifyTimer("verified");
+        invalidTimer = verifyTimer("invalid");
+    }
 
     public String generateToken(String username, String role) {
         return Jwts.builder()
                 .setSubject(username)
                 .claim("role", role)
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION))
-                .signWith(SignatureAlgorithm.HS256, SECRET)
+                .setExpiration(new Date(System.currentTimeMillis() + expirationMs))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    // Checks signature and expiry once and returns the claims the caller needs.
+    // Throws a JwtException for tokens that are malformed, tampered with or expired.
+    public VerifiedToken verify(String token) {
+        long start = System.nanoTime();
+        Timer outcome = invalidTimer;
+        try {
+            String key = cacheEnabled ? digest(token) : null;
+            if (key != null) {
+                VerifiedToken cached = verifiedTokenCache.getIfPresent(key);
+                if (cached != null && !cached.isExpired()) {
+                    outcome = cachedTimer;
+                    return cached;
+                }
+            }
+
+            VerifiedToken verified = parse(token);
+            if (key != null) {
+                verifiedTokenCache.put(key, verified);
+            }
+            outcome = verifiedTimer;
+            return verified;
+        } finally {
+            outcome.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public long getExpirationMs() {
+        return expirationMs;
+    }
+
     public String extractUsername(String token) {
-        return getClaims(token).getSubject();
+        return verify(token).getUsername();
     }
 
     public String extractRole(String token) {
-        return (String) getClaims(token).get("role");
+        return verify(token).getRole();
     }
 
     public boolean validateToken(String token, String username) {
-        return extractUsername(token).equals(username) && !isExpired(token);
+        VerifiedToken verified = verify(token);
+        return verified.getUsername().equals(username) && !verified.isExpired();
     }
 
-    private boolean isExpired(String token) {
-        return getClaims(token).getExpiration().before(new Date());
+    private Timer verifyTimer(String result) {
+        return Timer.builder("jwt.verify")
+                .description("JWT verification time")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
-    private Claims getClaims(String token) {
-        return Jwts.parser()
-                .setSigningKey(SECRET)
-                .parseClaimsJws(token)
-                .getBody();
+    private VerifiedToken parse(String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        return new VerifiedToken(
+                claims.getSubject(),
+                claims.get("role", String.class),
+                claims.getExpiration().toInstant()
+        );
     }
-}
-
 
+    // Cache/storage key: tokens are never held in memory or stored in their usable form
+    public static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.uberbackend.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// Turns free-text locations into lowercase word-prefix tokens. Rides store the
+// tokens of pickup + drop in an indexed array, and searches match with $all,
+// so a lookup is an index scan and user input never reaches a regex.
+public final class LocationTokenizer {
+
+    // Longer query words are truncated to this length; the index holds nothing longer
+    public static final int MAX_PREFIX_LENGTH = 15;
+
+    private LocationTokenizer() {
+    }
+
+    // Every prefix of every word, e.g. "Airport T2" -> a, ai, air, ..., airport, t, t2
+    public static List<String> indexTokens(String... locations) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String location : locations) {
+            for (String word : words(location)) {
+                int max = Math.min(word.length(), MAX_PREFIX_LENGTH);
+                for (int i = 1; i <= max; i++) {
+                    tokens.add(word.substring(0, i));
+                }
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    // The words of a search string, normalized the same way as the index
+    public static List<String> queryTokens(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String word : words(text)) {
+            tokens.add(word.length() > MAX_PREFIX_LENGTH ? word.substring(0, MAX_PREFIX_LENGTH) : word);
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.uberbackend.util;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Writes one JSON document per line as elements arrive, so memory stays
+// bounded by the cursor batch instead of the size of the result set.
+@Component
+public class NdjsonWriter {
+
+    private static final int FLUSH_EVERY = 100;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public long write(Stream<?> elements, OutputStream out) throws IOException {
+        long written = 0;
+        Iterator<?> iterator = elements.iterator();
+
+        while (iterator.hasNext()) {
+            out.write(objectMapper.writeValueAsBytes(iterator.next()));
+            out.write('\n');
+            written++;
+
+            // Flush the first line right away for a fast first byte, then in chunks
+            if (written == 1 || written % FLUSH_EVERY == 0) {
+                out.flush();
+            }
+        }
+
+        out.flush();
+        return written;
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.uberbackend.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.bson.Document;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Continuation token for keyset pagination: the sort key and _id of the last
+// ride on the previous page. Clients treat the encoded form as opaque.
+@Data
+@AllArgsConstructor
+public class RideCursor {
+
+    private String sortField;
+    private String order;
+    private String lastValue;
+    private String lastId;
+
+    public String encode() {
+        Document document = new Document("s", sortField)
+                .append("o", order)
+                .append("v", lastValue)
+                .append("id", lastId);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(document.toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static RideCursor decode(String token) {
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            Document document = Document.parse(json);
+            RideCursor cursor = new RideCursor(
+                    document.getString("s"),
+                    document.getString("o"),
+                    document.getString("v"),
+                    document.getString("id")
+            );
+            if (cursor.getSortField() == null || cursor.getLastId() == null) {
+                throw new IllegalArgumentException("incomplete cursor");
+            }
+            return cursor;
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.uberbackend.util;
+
+import org.example.uberbackend.model.Ride;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+// Sparse fieldset from a ?fields=id,status,fare parameter. The selected fields are
+// pushed into the Mongo projection and only they are written to the response.
+public final class RideFields {
+
+    // JSON name -> (entity property, accessor). Coordinates are read from the GeoJSON points
+    // and createdDate is derived from createdAt.
+    private static final Map<String, Field> FIELDS = new LinkedHashMap<>();
+
+    static {
+        field("id", "id", Ride::getId);
+        field("passengerUsername", "passengerUsername", Ride::getPassengerUsername);
+        field("driverUsername", "driverUsername", Ride::getDriverUsername);
+        field("pickupLocation", "pickupLocation", Ride::getPickupLocation);
+        field("dropLocation", "dropLocation", Ride::getDropLocation);
+        field("fare", "fare", Ride::getFare);
+        field("distanceKm", "distanceKm", Ride::getDistanceKm);
+        field("status", "status", Ride::getStatus);
+        field("createdDate", "createdAt", Ride::getCreatedDate);
+        field("createdAt", "createdAt", Ride::getCreatedAt);
+        field("pickupCoordinates", "pickupPoint", Ride::getPickupCoordinates);
+        field("dropCoordinates", "dropPoint", Ride::getDropCoordinates);
+    }
+
+    private final List<Field> selected;
+
+    private RideFields(List<Field> selected) {
+        this.selected = selected;
+    }
+
+    // Returns null (all fields) when the parameter is absent or blank
+    public static RideFields parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+
+        Set<Field> selected = new LinkedHashSet<>();
+        for (String name : fields.split(",")) {
+            Field field = FIELDS.get(name.trim());
+            if (field == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Unknown field '" + name.trim() + "', allowed: " + FIELDS.keySet());
+            }
+            selected.add(field);
+        }
+        return new RideFields(new ArrayList<>(selected));
+    }
+
+    public Query applyTo(Query query) {
+        selected.forEach(field -> query.fields().include(field.property));
+        return query;
+    }
+
+    public Map<String, Object> select(Ride ride) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Field field : selected) {
+            values.put(field.name, field.accessor.apply(ride));
+        }
+        return values;
+    }
+
+    // Response body for a list endpoint: full rides, or only the requested fields
+    public static List<?> render(List<Ride> rides, RideFields fields) {
+        if (fields == null) {
+            return rides;
+        }
+        return rides.stream().map(fields::select).toList();
+    }
+
+    private static void field(String name, String property, Function<Ride, Object> accessor) {
+        FIELDS.put(name, new Field(name, property, accessor));
+    }
+
+    private record Field(String name, String property, Function<Ride, Object> accessor) {
+    }
+}
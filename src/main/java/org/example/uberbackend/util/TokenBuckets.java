@@ -0,0 +1,70 @@
+package org.example.uberbackend.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Fixed-size table of token buckets, one long per slot, updated with CAS only.
+// Keys are hashed onto the slots, so memory is bounded no matter how many users
+// or IPs show up; two keys sharing a slot share a bucket, which with the default
+// table size only rarely limits a client earlier than configured.
+//
+// Slot layout: high 32 bits = tokens in thousandths, low 32 bits = time of the
+// last refill in ms since the table was created. 0 means "never used" (full).
+public class TokenBuckets {
+
+    private static final long MILLI = 1000;
+
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final long origin = System.nanoTime();
+
+    public TokenBuckets(int size) {
+        int capacity = Integer.highestOneBit(Math.max(size, 2) - 1) << 1;
+        this.slots = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+    }
+
+    // Takes one token from the key's bucket. Returns 0 when it was taken, otherwise
+    // how many ms until the next token arrives.
+    public long tryAcquire(String key, Limit limit) {
+        int index = spread(key.hashCode()) & mask;
+        long capacity = limit.burst() * MILLI;
+        // Starts at 1 so a used slot is never 0
+        long now = ((System.nanoTime() - origin) / 1_000_000 + 1) & 0xFFFFFFFFL;
+
+        while (true) {
+            long current = slots.get(index);
+            long tokens;
+            if (current == 0) {
+                tokens = capacity;
+            } else {
+                long elapsed = (now - (current & 0xFFFFFFFFL)) & 0xFFFFFFFFL;
+                // One token per second is one thousandth per ms
+                tokens = Math.min(capacity, (current >>> 32) + elapsed * limit.perSecond());
+            }
+
+            if (tokens < MILLI) {
+                return Math.max(1, (MILLI - tokens + limit.perSecond() - 1) / limit.perSecond());
+            }
+
+            long next = ((tokens - MILLI) << 32) | now;
+            if (slots.compareAndSet(index, current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        return hash ^ (hash >>> 13);
+    }
+
+    // Sustained rate and burst size of one bucket; both must be at least 1
+    public record Limit(long perSecond, long burst) {
+        public Limit {
+            if (perSecond < 1 || burst < 1 || burst > 1_000_000) {
+                throw new IllegalArgumentException("Rate limit needs perSecond >= 1 and 1 <= burst <= 1000000");
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.uberbackend.util;
+
+import lombok.Value;
+import java.time.Instant;
+
+// Claims of a token whose signature and expiry have been checked once
+@Value
+public class VerifiedToken {
+    String username;
+    String role;
+    Instant expiresAt;
+
+    public boolean isExpired() {
+        return !Instant.now().isBefore(expiresAt);
+    }
+}
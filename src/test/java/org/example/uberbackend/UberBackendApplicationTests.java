@@ -1,11 +1,38 @@
 package org.example.uberbackend;
 
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import java.net.InetSocketAddress;
 
-@SpringBootTest
+// Boots against an in-memory MongoDB stand-in, so the test doesn't need a local server
+@SpringBootTest(properties = {
+    // The stand-in has no 2dsphere support and explain() differs from a real server
+    "spring.data.mongodb.auto-index-creation=false",
+    "mongo.index-check.mode=off",
+    "rides.search.backfill-on-startup=false"
+})
 class UberBackendApplicationTests {
 
+    private static final MongoServer MONGO = new MongoServer(new MemoryBackend());
+    private static final InetSocketAddress MONGO_ADDRESS = MONGO.bind();
+
+    @DynamicPropertySource
+    static void mongo(DynamicPropertyRegistry registry) {
+        String uri = "mongodb://" + MONGO_ADDRESS.getHostString() + ":" + MONGO_ADDRESS.getPort() + "/uberdb_test";
+        registry.add("spring.data.mongodb.uri", () -> uri);
+        registry.add("spring.mongodb.uri", () -> uri);
+    }
+
+    @AfterAll
+    static void stopMongo() {
+        MONGO.shutdownNow();
+    }
+
     @Test
     void contextLoads() {
     }
@@ -0,0 +1,53 @@
+package org.example.uberbackend.benchmark;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.uberbackend.util.JwtUtil;
+import org.example.uberbackend.util.VerifiedToken;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.concurrent.TimeUnit;
+
+// Token issue (login) and verification (every authenticated request), with and
+// without the verified-token cache.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    @Param({"true", "false"})
+    private boolean verifiedCache;
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = newJwtUtil(verifiedCache);
+        token = jwtUtil.generateToken("passenger1", "PASSENGER");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("passenger1", "PASSENGER");
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtil.validateToken(token, "passenger1");
+    }
+
+    static JwtUtil newJwtUtil(boolean verifiedCache) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "verifiedTokenCache",
+                Caffeine.newBuilder().maximumSize(10_000).<String, VerifiedToken>build());
+        ReflectionTestUtils.setField(jwtUtil, "cacheEnabled", verifiedCache);
+        ReflectionTestUtils.setField(jwtUtil, "expirationMs", 900000L);
+        ReflectionTestUtils.setField(jwtUtil, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.invokeMethod(jwtUtil, "registerMeters");
+        return jwtUtil;
+    }
+}
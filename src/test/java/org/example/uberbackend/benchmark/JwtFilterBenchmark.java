@@ -0,0 +1,72 @@
+package org.example.uberbackend.benchmark;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import org.example.uberbackend.config.JwtFilter;
+import org.example.uberbackend.service.UserService;
+import org.example.uberbackend.util.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.concurrent.TimeUnit;
+
+// Per-request cost of JwtFilter on the warm path: token verification plus the
+// cached user lookup. "public" measures the bypass for /api/auth and /api/health.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    @Param({"bearer", "public"})
+    private String request;
+
+    @Param({"true", "false"})
+    private boolean verifiedCache;
+
+    private JwtFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = JwtBenchmark.newJwtUtil(verifiedCache);
+        authorization = "Bearer " + jwtUtil.generateToken("passenger1", "PASSENGER");
+
+        Cache<String, UserDetails> users = Caffeine.newBuilder().build();
+        users.put("passenger1", User.withUsername("passenger1").password("x").roles("PASSENGER").build());
+        UserService userService = new UserService();
+        ReflectionTestUtils.setField(userService, "userDetailsCache", users);
+
+        filter = new JwtFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(filter, "userService", userService);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse doFilter() throws Exception {
+        MockHttpServletRequest servletRequest;
+        if ("public".equals(request)) {
+            servletRequest = new MockHttpServletRequest("GET", "/api/health/ping");
+        } else {
+            servletRequest = new MockHttpServletRequest("GET", "/api/rides");
+            servletRequest.addHeader("Authorization", authorization);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        try {
+            filter.doFilter(servletRequest, response, NO_OP_CHAIN);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        return response;
+    }
+}
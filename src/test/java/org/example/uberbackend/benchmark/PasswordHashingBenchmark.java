@@ -0,0 +1,49 @@
+package org.example.uberbackend.benchmark;
+
+import org.example.uberbackend.config.BoundedPasswordEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import java.util.concurrent.TimeUnit;
+
+// Password checks per second on one core, i.e. the login capacity each core given
+// to security.password.threads adds. "bounded" includes the executor hand-off.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordHashingBenchmark {
+
+    private static final String PASSWORD = "password123";
+
+    @Param({"10", "12"})
+    private int strength;
+
+    @Param({"direct", "bounded"})
+    private String encoder;
+
+    private PasswordEncoder passwordEncoder;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        passwordEncoder = "bounded".equals(encoder)
+                ? new BoundedPasswordEncoder(strength, 1, 64, 60_000)
+                : new BCryptPasswordEncoder(strength);
+        hash = passwordEncoder.encode(PASSWORD);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (passwordEncoder instanceof BoundedPasswordEncoder bounded) {
+            bounded.shutdown();
+        }
+    }
+
+    @Benchmark
+    public boolean login() {
+        return passwordEncoder.matches(PASSWORD, hash);
+    }
+}
@@ -0,0 +1,245 @@
+package org.example.uberbackend.benchmark;
+
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// End-to-end load harness: boots the whole app on a random port against an in-memory
+// MongoDB stand-in and drives create -> accept -> complete over real HTTP with
+// simulated passengers and drivers. Reports lifecycles/s and, per endpoint,
+// throughput, latency percentiles, status codes and accept races (409).
+//
+// mvn test -Pbenchmark -Dtest=RideLifecycleLoadTest -Dload.passengers=100 -Dload.drivers=40 -Dload.seconds=60
+@Tag("benchmark")
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+        // The stand-in has no 2dsphere support and explain() differs from a real server
+        "spring.data.mongodb.auto-index-creation=false",
+        "mongo.index-check.mode=off",
+        "rides.search.backfill-on-startup=false",
+        // Every simulated user logs in from the same address
+        "rate-limit.enabled=false"
+    }
+)
+class RideLifecycleLoadTest {
+
+    private static final int PASSENGERS = Integer.getInteger("load.passengers", 50);
+    private static final int DRIVERS = Integer.getInteger("load.drivers", 20);
+    private static final int SECONDS = Integer.getInteger("load.seconds", 30);
+    private static final long PASSENGER_THINK_MILLIS = Long.getLong("load.think-ms", 20);
+
+    private static final MongoServer MONGO = new MongoServer(new MemoryBackend());
+    private static final InetSocketAddress MONGO_ADDRESS = MONGO.bind();
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final JsonMapper json = JsonMapper.builder().build();
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+    private final LongAdder lifecycles = new LongAdder();
+    private final LongAdder acceptRaces = new LongAdder();
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void mongo(DynamicPropertyRegistry registry) {
+        String uri = "mongodb://" + MONGO_ADDRESS.getHostString() + ":" + MONGO_ADDRESS.getPort() + "/uberdb_load";
+        registry.add("spring.data.mongodb.uri", () -> uri);
+        registry.add("spring.mongodb.uri", () -> uri);
+    }
+
+    @AfterAll
+    static void stopMongo() {
+        MONGO.shutdownNow();
+    }
+
+    @Test
+    void rideLifecycleThroughput() throws Exception {
+        List<String> passengerTokens = signUp("load-passenger-", PASSENGERS, "ROLE_USER");
+        List<String> driverTokens = signUp("load-driver-", DRIVERS, "ROLE_DRIVER");
+        endpoints.clear();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SECONDS);
+        long start = System.nanoTime();
+
+        try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            passengerTokens.forEach(token -> users.submit(() -> passenger(token, deadline)));
+            driverTokens.forEach(token -> users.submit(() -> driver(token, deadline)));
+        }
+
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        report(elapsed);
+
+        assertTrue(lifecycles.sum() > 0, "no ride completed its lifecycle");
+    }
+
+    private void passenger(String token, long deadline) {
+        while (System.nanoTime() < deadline) {
+            int n = ThreadLocalRandom.current().nextInt(1000);
+            String body = "{\"pickupLocation\":\"Pickup Street " + n + "\",\"dropLocation\":\"Airport Terminal " + n % 4
+                    + "\",\"fare\":" + (10 + n % 50) + ",\"distanceKm\":" + (1 + n % 30) + "}";
+            call("POST /api/rides", post("/api/rides", token, body));
+            pause(PASSENGER_THINK_MILLIS);
+        }
+    }
+
+    private void driver(String token, long deadline) {
+        while (System.nanoTime() < deadline) {
+            Result open = call("GET /api/rides/open", get("/api/rides/open?limit=10", token));
+            JsonNode rides = open.status == 200 ? json.readTree(open.body) : null;
+            if (rides == null || rides.isEmpty()) {
+                pause(5);
+                continue;
+            }
+
+            // Random pick among the oldest rides, so drivers really do compete for the same ones
+            String id = rides.get(ThreadLocalRandom.current().nextInt(rides.size())).get("id").asString();
+            Result accepted = call("POST /api/rides/accept/{id}", post("/api/rides/accept/" + id, token, ""));
+            if (accepted.status == 409) {
+                acceptRaces.increment();
+                continue;
+            }
+            if (accepted.status != 200) {
+                continue;
+            }
+
+            Result completed = call("POST /api/rides/complete/{id}", post("/api/rides/complete/" + id, token, ""));
+            if (completed.status == 200) {
+                lifecycles.increment();
+            }
+        }
+    }
+
+    private List<String> signUp(String prefix, int count, String role) throws Exception {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String credentials = "{\"username\":\"" + prefix + i + "\",\"password\":\"secret\"";
+            call("register", post("/api/auth/register", null, credentials + ",\"role\":\"" + role + "\"}"));
+            Result login = call("login", post("/api/auth/login", null, credentials + "}"));
+            tokens.add(json.readTree(login.body).get("token").asString());
+        }
+        return tokens;
+    }
+
+    private HttpRequest post(String path, String token, String body) {
+        return request(path, token).header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    private HttpRequest get(String path, String token) {
+        return request(path, token).GET().build();
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(30));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private Result call(String endpoint, HttpRequest request) {
+        EndpointStats stats = endpoints.computeIfAbsent(endpoint, key -> new EndpointStats());
+        long started = System.nanoTime();
+        try {
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            stats.record(System.nanoTime() - started, response.statusCode());
+            return new Result(response.statusCode(), response.body());
+        } catch (Exception e) {
+            stats.record(System.nanoTime() - started, -1);
+            return new Result(-1, null);
+        }
+    }
+
+    private void report(double elapsedSeconds) {
+        System.out.printf("%n%d passengers, %d drivers, %.1f s%n", PASSENGERS, DRIVERS, elapsedSeconds);
+        System.out.printf("Completed lifecycles: %d (%.1f/s), accept races lost: %d%n%n",
+                lifecycles.sum(), lifecycles.sum() / elapsedSeconds, acceptRaces.sum());
+        System.out.printf("%-32s %8s %9s %8s %8s %8s %8s  %s%n",
+                "endpoint", "count", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "status codes");
+
+        new TreeMap<>(endpoints).forEach((endpoint, stats) -> {
+            long[] latencies = stats.sortedLatencies();
+            if (latencies.length == 0) {
+                return;
+            }
+            System.out.printf("%-32s %8d %9.1f %8.2f %8.2f %8.2f %8.2f  %s%n",
+                    endpoint, latencies.length, latencies.length / elapsedSeconds,
+                    percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99),
+                    latencies[latencies.length - 1] / 1e6, stats.statusCounts());
+        });
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Result(int status, String body) {
+    }
+
+    private static final class EndpointStats {
+        private long[] latencies = new long[1024];
+        private int count;
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        synchronized void record(long nanos, int status) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+        }
+
+        synchronized long[] sortedLatencies() {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+
+        Map<Integer, Long> statusCounts() {
+            Map<Integer, Long> counts = new TreeMap<>();
+            statuses.forEach((status, adder) -> counts.put(status, adder.sum()));
+            return counts;
+        }
+    }
+}
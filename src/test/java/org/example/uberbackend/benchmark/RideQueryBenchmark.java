@@ -0,0 +1,45 @@
+package org.example.uberbackend.benchmark;
+
+import org.bson.Document;
+import org.example.uberbackend.service.RideQueries;
+import org.example.uberbackend.util.RideCursor;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.query.Query;
+import java.util.concurrent.TimeUnit;
+
+// Building and rendering the advanced-search query, i.e. the CPU work done
+// in RideService before the request reaches MongoDB.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RideQueryBenchmark {
+
+    private final RideCursor cursor = new RideCursor("fare", "desc", "42.5", "675b1c2f9a1e4d3b2c1a0f9e");
+
+    @Benchmark
+    public Document offsetPage() {
+        Query query = RideQueries.advancedSearch("air term", "REQUESTED", "fare", "desc");
+        query.with(PageRequest.of(3, 20));
+        return render(query);
+    }
+
+    @Benchmark
+    public Document keysetPage() {
+        return render(RideQueries.advancedSearchAfter("air term", "REQUESTED", "fare", "desc", cursor, 21));
+    }
+
+    @Benchmark
+    public Document filtersOnly() {
+        return render(RideQueries.advancedSearch(null, null, null, null));
+    }
+
+    private static Document render(Query query) {
+        Document rendered = new Document(query.getQueryObject());
+        rendered.put("$sort", query.getSortObject());
+        return rendered;
+    }
+}
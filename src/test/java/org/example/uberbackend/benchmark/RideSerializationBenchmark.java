@@ -0,0 +1,51 @@
+package org.example.uberbackend.benchmark;
+
+import org.example.uberbackend.model.Ride;
+import org.example.uberbackend.model.RideStatus;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.json.JsonMapper;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// Cost of rendering a List<Ride> response body, as the list endpoints do.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RideSerializationBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    private int size;
+
+    private JsonMapper mapper;
+    private List<Ride> rides;
+
+    @Setup
+    public void setUp() {
+        mapper = JsonMapper.builder().build();
+        rides = IntStream.range(0, size).mapToObj(RideSerializationBenchmark::ride).toList();
+    }
+
+    @Benchmark
+    public byte[] serializeRides() {
+        return mapper.writeValueAsBytes(rides);
+    }
+
+    private static Ride ride(int i) {
+        Ride ride = new Ride();
+        ride.setId(String.format("%024x", i));
+        ride.setPassengerUsername("passenger" + i % 100);
+        ride.setDriverUsername(i % 3 == 0 ? null : "driver" + i % 20);
+        ride.setPickupLocation("Pickup Street " + i);
+        ride.setDropLocation("Drop Avenue " + i);
+        ride.setFare(10.0 + i % 50);
+        ride.setDistanceKm(1.0 + i % 30);
+        ride.setStatus(i % 3 == 0 ? RideStatus.REQUESTED : RideStatus.ACCEPTED);
+        ride.setCreatedAt(LocalDateTime.of(2025, 12, 12, 10, 30).plusSeconds(i));
+        return ride;
+    }
+}
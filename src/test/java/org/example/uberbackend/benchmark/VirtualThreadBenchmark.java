@@ -0,0 +1,206 @@
+package org.example.uberbackend.benchmark;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.example.uberbackend.UberBackendApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.mongodb.autoconfigure.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import tools.jackson.databind.json.JsonMapper;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Boots the app twice against an in-memory MongoDB, once with Tomcat's platform worker
+// pool and once with spring.threads.virtual.enabled=true, and drives GET /api/rides/user/{id}
+// over real HTTP. Every Mongo command on the request path is delayed by a slow-datastore
+// stand-in (fixed base latency with occasional spikes), so each request parks its thread
+// the way it would against a slow cluster. Load is open-loop at a fixed arrival rate and
+// latency is measured from the intended start time, so queueing in front of a saturated
+// worker pool shows up in p99 instead of being hidden by a slowed-down client.
+//
+// mvn test -Pbenchmark -Dtest=VirtualThreadBenchmark -Dvt.rps=4000 -Dvt.seconds=10
+@Tag("benchmark")
+class VirtualThreadBenchmark {
+
+    private static final int REQUESTS_PER_SECOND = Integer.getInteger("vt.rps", 4000);
+    private static final int SECONDS = Integer.getInteger("vt.seconds", 10);
+    private static final int PLATFORM_THREADS = Integer.getInteger("vt.platform-threads", 200);
+
+    private static final long BASE_MILLIS = 40;
+    private static final double SPIKE_RATE = 0.02;
+    private static final long SPIKE_MILLIS = 400;
+
+    // Only the reads the benchmark drives are slowed down, so sign-up and startup stay fast
+    private static final Set<String> SLOW_COMMANDS = Set.of("find", "aggregate", "getMore");
+
+    private static final MongoServer MONGO = new MongoServer(new MemoryBackend());
+    private static final InetSocketAddress MONGO_ADDRESS = MONGO.bind();
+
+    private final JsonMapper json = JsonMapper.builder().build();
+
+    @AfterAll
+    static void stopMongo() {
+        MONGO.shutdownNow();
+    }
+
+    @Test
+    void virtualThreadsVersusPlatformPool() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        System.out.printf("%n%d req/s for %d s, datastore %d ms (%.0f%% at %d ms), %d Tomcat threads in platform mode%n",
+                REQUESTS_PER_SECOND, SECONDS, BASE_MILLIS, SPIKE_RATE * 100, SPIKE_MILLIS, PLATFORM_THREADS);
+        System.out.printf("%-10s %10s %10s %10s %10s %10s%n", "mode", "req/s", "p50 ms", "p99 ms", "max ms", "errors");
+        platform.print("platform");
+        virtual.print("virtual");
+
+        assertTrue(virtual.throughput > 0 && platform.throughput > 0);
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        String database = "uberdb_threads_" + (virtualThreads ? "virtual" : "platform");
+        String uri = "mongodb://" + MONGO_ADDRESS.getHostString() + ":" + MONGO_ADDRESS.getPort() + "/" + database;
+
+        try (ConfigurableApplicationContext app = new SpringApplicationBuilder(UberBackendApplication.class, SlowDatastore.class)
+                // Command-line arguments, so a local application.properties can't override the mode
+                .run(
+                        "--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--server.tomcat.threads.max=" + PLATFORM_THREADS,
+                        "--spring.data.mongodb.uri=" + uri,
+                        "--spring.mongodb.uri=" + uri,
+                        // The stand-in has no 2dsphere support and explain() differs from a real server
+                        "--spring.data.mongodb.auto-index-creation=false",
+                        "--mongo.index-check.mode=off",
+                        "--rides.search.backfill-on-startup=false",
+                        // Every request comes from one user on one address
+                        "--rate-limit.enabled=false",
+                        "--load-shedding.enabled=false")) {
+            int port = app.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            HttpClient http = HttpClient.newBuilder()
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            String token = signUp(http, port, "vt-" + database);
+
+            SlowDatastore.enabled = true;
+            try {
+                // Warm-up so JIT and thread creation don't skew the measured run
+                drive(http, port, token, 1);
+                return drive(http, port, token, SECONDS);
+            } finally {
+                SlowDatastore.enabled = false;
+            }
+        }
+    }
+
+    private Result drive(HttpClient http, int port, String token, int seconds) {
+        int total = REQUESTS_PER_SECOND * seconds;
+        long interval = TimeUnit.SECONDS.toNanos(1) / REQUESTS_PER_SECOND;
+        long[] latencies = new long[total];
+        LongAdder errors = new LongAdder();
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[total];
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/rides/user/nobody"))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+
+        long start = System.nanoTime();
+        int submitted = 0;
+        while (submitted < total) {
+            // Send every request whose arrival time has passed
+            long due = Math.min(total, (System.nanoTime() - start) / interval + 1);
+            for (; submitted < due; submitted++) {
+                int index = submitted;
+                long intendedStart = start + index * interval;
+                responses[index] = http.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                        .whenComplete((response, failure) -> {
+                            latencies[index] = System.nanoTime() - intendedStart;
+                            if (failure != null || response.statusCode() != 200) {
+                                errors.increment();
+                            }
+                        });
+            }
+            LockSupport.parkNanos(interval);
+        }
+
+        CompletableFuture.allOf(responses).exceptionally(failure -> null).join();
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        return new Result(
+                total * 1_000_000_000.0 / elapsed,
+                percentile(latencies, 0.50),
+                percentile(latencies, 0.99),
+                latencies[total - 1] / 1_000_000.0,
+                errors.sum()
+        );
+    }
+
+    private String signUp(HttpClient http, int port, String username) throws Exception {
+        String credentials = "{\"username\":\"" + username + "\",\"password\":\"secret\"";
+        http.send(post(port, "/api/auth/register", credentials + ",\"role\":\"ROLE_USER\"}"), HttpResponse.BodyHandlers.discarding());
+        HttpResponse<String> login = http.send(post(port, "/api/auth/login", credentials + "}"), HttpResponse.BodyHandlers.ofString());
+        return json.readTree(login.body()).get("token").asString();
+    }
+
+    private HttpRequest post(int port, String path, String body) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    // Slow-datastore stand-in: blocks the calling thread inside the driver before each
+    // command is sent, exactly where a slow server would. The pool is widened so the
+    // driver's default 100 connections don't become the bottleneck in either mode.
+    // Registered only as an explicit source above, never picked up by component scanning.
+    static class SlowDatastore {
+        static volatile boolean enabled;
+
+        @Bean
+        MongoClientSettingsBuilderCustomizer slowDatastoreCustomizer() {
+            return settings -> settings
+                    .applyToConnectionPoolSettings(pool -> pool.maxSize(4 * REQUESTS_PER_SECOND))
+                    .addCommandListener(new CommandListener() {
+                        @Override
+                        public void commandStarted(CommandStartedEvent event) {
+                            if (enabled && SLOW_COMMANDS.contains(event.getCommandName())) {
+                                long millis = ThreadLocalRandom.current().nextDouble() < SPIKE_RATE ? SPIKE_MILLIS : BASE_MILLIS;
+                                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(millis));
+                            }
+                        }
+                    });
+        }
+    }
+
+    private record Result(double throughput, double p50, double p99, double max, long errors) {
+        void print(String mode) {
+            System.out.printf("%-10s %10.0f %10.1f %10.1f %10.1f %10d%n", mode, throughput, p50, p99, max, errors);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.uberbackend.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedPasswordEncoderTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        encoder.shutdown();
+    }
+
+    @Test
+    void hashesAndChecksOnThePool() {
+        encoder = new BoundedPasswordEncoder(4, 1, 4, 5_000);
+
+        String hash = encoder.encode("secret");
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.matches("wrong", hash));
+    }
+
+    @Test
+    void fullQueueIsRejectedWith503() throws Exception {
+        encoder = new BoundedPasswordEncoder(4, 1, 1, 5_000);
+        // One hash running and one waiting: the pool and its queue are full
+        occupyWorker();
+        executor().execute(() -> { });
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> encoder.matches("secret", "hash"));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+        assertEquals(1, encoder.getQueued());
+        assertEquals(1, encoder.getActive());
+    }
+
+    @Test
+    void hashThatWaitsTooLongIsAnsweredWith503() throws Exception {
+        encoder = new BoundedPasswordEncoder(4, 1, 4, 50);
+        occupyWorker();
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> encoder.encode("secret"));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+        // The timed-out hash is taken out of the queue instead of holding a slot
+        assertEquals(0, encoder.getQueued());
+    }
+
+    @Test
+    void onlyHashesWithAnotherCostNeedUpgrading() {
+        encoder = new BoundedPasswordEncoder(10, 1, 4, 5_000);
+
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("secret")));
+        assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(10).encode("secret")));
+        assertFalse(encoder.upgradeEncoding(null));
+        assertFalse(encoder.upgradeEncoding("{noop}secret"));
+    }
+
+    private void occupyWorker() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        executor().execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        started.await();
+    }
+
+    private ThreadPoolExecutor executor() {
+        return (ThreadPoolExecutor) ReflectionTestUtils.getField(encoder, "executor");
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.uberbackend.config;
+
+import org.bson.Document;
+import org.example.uberbackend.model.Ride;
+import org.example.uberbackend.model.RideStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MongoConfigTest {
+
+    @Test
+    void statusCodesRoundTrip() {
+        MongoConfig.RideStatusToCode toCode = new MongoConfig.RideStatusToCode();
+        MongoConfig.CodeToRideStatus toStatus = new MongoConfig.CodeToRideStatus();
+
+        for (RideStatus status : RideStatus.values()) {
+            assertEquals(status, toStatus.convert(toCode.convert(status)));
+        }
+        assertEquals(1, toCode.convert(RideStatus.REQUESTED));
+        assertEquals(3, toCode.convert(RideStatus.COMPLETED));
+    }
+
+    @Test
+    void unknownStatusCodeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new MongoConfig.CodeToRideStatus().convert(9));
+    }
+
+    @Test
+    void ridesAreStoredUnderShortNamesWithStatusCodes() {
+        MappingMongoConverter converter = converter();
+        Ride ride = new Ride();
+        ride.setPassengerUsername("alice");
+        ride.setFare(18.0);
+        ride.setStatus(RideStatus.ACCEPTED);
+        ride.setCreatedAt(LocalDateTime.of(2025, 12, 12, 10, 30));
+
+        Document stored = new Document();
+        converter.write(ride, stored);
+
+        assertEquals("alice", stored.get(Ride.PASSENGER));
+        assertEquals(18.0, stored.get(Ride.FARE));
+        assertEquals(RideStatus.ACCEPTED.getCode(), stored.get(Ride.STATUS));
+        assertFalse(stored.containsKey("createdDate"));
+
+        Ride read = converter.read(Ride.class, stored);
+        assertEquals(RideStatus.ACCEPTED, read.getStatus());
+        assertEquals(ride.getCreatedDate(), read.getCreatedDate());
+    }
+
+    private static MappingMongoConverter converter() {
+        MongoCustomConversions conversions = new MongoConfig().mongoCustomConversions();
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+}
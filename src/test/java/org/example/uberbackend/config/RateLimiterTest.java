@@ -0,0 +1,49 @@
+package org.example.uberbackend.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.example.uberbackend.config.RateLimiter.Group.AUTH;
+import static org.example.uberbackend.config.RateLimiter.Group.LIST;
+import static org.example.uberbackend.config.RateLimiter.Group.OTHER;
+import static org.example.uberbackend.config.RateLimiter.Group.SEARCH;
+import static org.example.uberbackend.config.RateLimiter.Group.WRITE;
+import static org.example.uberbackend.config.RateLimiter.groupOf;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RateLimiterTest {
+
+    @Test
+    void loginAndRefreshAreAuth() {
+        assertEquals(AUTH, groupOf("POST", "/api/auth/login"));
+        assertEquals(AUTH, groupOf("POST", "/api/auth/refresh"));
+    }
+
+    @Test
+    void fullListingsAndV2StreamsAreList() {
+        assertEquals(LIST, groupOf("GET", "/api/rides"));
+        assertEquals(LIST, groupOf("GET", "/api/v2/rides"));
+        assertEquals(LIST, groupOf("GET", "/api/v2/rides/search"));
+    }
+
+    @Test
+    void rideQueriesAreSearch() {
+        assertEquals(SEARCH, groupOf("GET", "/api/rides/search"));
+        assertEquals(SEARCH, groupOf("GET", "/api/rides/user/alice"));
+        assertEquals(SEARCH, groupOf("GET", "/api/rides/advanced-search"));
+    }
+
+    @Test
+    void inMemoryAndStreamingRideEndpointsAreOther() {
+        assertEquals(OTHER, groupOf("GET", "/api/rides/open"));
+        assertEquals(OTHER, groupOf("GET", "/api/rides/events"));
+        assertEquals(OTHER, groupOf("GET", "/api/analytics/status-summary"));
+    }
+
+    @Test
+    void nonGetApiCallsAreWrite() {
+        assertEquals(WRITE, groupOf("POST", "/api/rides"));
+        assertEquals(WRITE, groupOf("POST", "/api/rides/accept/42"));
+        assertEquals(WRITE, groupOf("POST", "/api/rides/by-ids"));
+        assertEquals(OTHER, groupOf("POST", "/error"));
+    }
+}
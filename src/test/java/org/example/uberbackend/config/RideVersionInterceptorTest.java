@@ -0,0 +1,188 @@
+package org.example.uberbackend.config;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.example.uberbackend.model.Ride;
+import org.example.uberbackend.service.RideVersionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import java.net.InetSocketAddress;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class RideVersionInterceptorTest {
+
+    private MongoServer server;
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private RideVersionService versions;
+    private RideVersionInterceptor interceptor;
+
+    @BeforeEach
+    void startMongo() {
+        server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        client = MongoClients.create("mongodb://" + address.getHostString() + ":" + address.getPort());
+        mongoTemplate = new MongoTemplate(client, "uberdb_versions");
+        versions = versionService();
+        interceptor = interceptor(versions);
+    }
+
+    @AfterEach
+    void stopMongo() {
+        client.close();
+        server.shutdownNow();
+    }
+
+    @Test
+    void answers304UntilARideChanges() throws Exception {
+        String etag = get(interceptor, "all", null, null).getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        MockHttpServletResponse unchanged = get(interceptor, "all", null, etag);
+        assertEquals(304, unchanged.getStatus());
+
+        versions.bump(ride("alice", null));
+
+        MockHttpServletResponse changed = get(interceptor, "all", null, etag);
+        assertEquals(200, changed.getStatus());
+        assertNotEquals(etag, changed.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void etagIssuedWhileAWriteIsInFlightStopsMatchingOnceItCompletes() throws Exception {
+        // A read while the write is in flight may still see the old rides ...
+        String duringWrite = get(interceptor, "all", null, null).getHeader(HttpHeaders.ETAG);
+        // ... and RideService bumps once the write is done
+        versions.bump(ride("alice", null));
+
+        assertEquals(200, get(interceptor, "all", null, duringWrite).getStatus());
+    }
+
+    @Test
+    void versionsDontGoBackWhileASyncIsUnderWay() throws Exception {
+        versions.bump(ride("alice", null));
+        versions.sync();
+        versions.bump(ride("alice", null));
+        String etag = get(interceptor, "all", null, null).getHeader(HttpHeaders.ETAG);
+
+        // Pushed but not pulled yet: the increment is in neither the local nor the stored count
+        ReflectionTestUtils.invokeMethod(versions, "push");
+        assertEquals(304, get(interceptor, "all", null, etag).getStatus());
+
+        versions.sync();
+        assertEquals(304, get(interceptor, "all", null, etag).getStatus());
+    }
+
+    @Test
+    void perUserEtagOnlyMovesWithThatUsersRides() throws Exception {
+        String etag = get(interceptor, "byUser", "alice", null).getHeader(HttpHeaders.ETAG);
+
+        versions.bump(ride("bob", "carol"));
+        assertEquals(304, get(interceptor, "byUser", "alice", etag).getStatus());
+
+        versions.bump(ride("dave", "alice"));
+        assertEquals(200, get(interceptor, "byUser", "alice", etag).getStatus());
+    }
+
+    @Test
+    void rebuildInvalidatesEveryUser() throws Exception {
+        String etag = get(interceptor, "byUser", "alice", null).getHeader(HttpHeaders.ETAG);
+
+        versions.bumpAll();
+
+        assertEquals(200, get(interceptor, "byUser", "alice", etag).getStatus());
+    }
+
+    @Test
+    void instancesShareVersions() throws Exception {
+        RideVersionService otherVersions = versionService();
+        RideVersionInterceptor other = interceptor(otherVersions);
+
+        // Until a counter is stored each instance has its own; write one first
+        versions.bump(ride("bob", null));
+        versions.sync();
+        otherVersions.sync();
+        String etag = get(interceptor, "all", null, null).getHeader(HttpHeaders.ETAG);
+        assertEquals(304, get(other, "all", null, etag).getStatus());
+
+        // A write handled by the other instance invalidates ETags issued by this one
+        // once both have synced
+        otherVersions.bump(ride("alice", null));
+        otherVersions.sync();
+        versions.sync();
+        assertEquals(200, get(interceptor, "all", null, etag).getStatus());
+    }
+
+    @Test
+    void handlersWithoutTheAnnotationGetNoEtag() throws Exception {
+        MockHttpServletResponse response = get(interceptor, "unversioned", null, null);
+
+        assertEquals(200, response.getStatus());
+        assertFalse(response.containsHeader(HttpHeaders.ETAG));
+    }
+
+    private MockHttpServletResponse get(RideVersionInterceptor interceptor, String handler, String userId,
+                                        String ifNoneMatch) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/rides/" + handler);
+        request.addHeader(HttpHeaders.ACCEPT, "application/json");
+        if (userId != null) {
+            request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("userId", userId));
+        }
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        HandlerMethod method = new HandlerMethod(new Handlers(), Handlers.class.getDeclaredMethod(handler));
+        boolean proceed = interceptor.preHandle(request, response, method);
+        assertEquals(response.getStatus() != 304, proceed);
+        return response;
+    }
+
+    private RideVersionService versionService() {
+        RideVersionService service = new RideVersionService();
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        return service;
+    }
+
+    private static RideVersionInterceptor interceptor(RideVersionService versions) {
+        RideVersionInterceptor interceptor = new RideVersionInterceptor();
+        ReflectionTestUtils.setField(interceptor, "rideVersionService", versions);
+        return interceptor;
+    }
+
+    private static Ride ride(String passenger, String driver) {
+        Ride ride = new Ride();
+        ride.setPassengerUsername(passenger);
+        ride.setDriverUsername(driver);
+        return ride;
+    }
+
+    static class Handlers {
+        @RideVersioned
+        void all() {
+        }
+
+        @RideVersioned(user = "userId")
+        void byUser() {
+        }
+
+        void unversioned() {
+        }
+    }
+}
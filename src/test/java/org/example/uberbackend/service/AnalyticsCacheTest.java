@@ -0,0 +1,78 @@
+package org.example.uberbackend.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.example.uberbackend.model.Ride;
+import org.example.uberbackend.util.CachedResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class AnalyticsCacheTest {
+
+    private final AtomicInteger computations = new AtomicInteger();
+    private RideVersionService versions;
+    private AnalyticsCache cache;
+
+    @BeforeEach
+    void setUp() {
+        // Bumps and reads stay in memory; nothing here syncs with MongoDB
+        versions = new RideVersionService();
+        cache = new AnalyticsCache();
+        ReflectionTestUtils.setField(cache, "analyticsResultCache", Caffeine.newBuilder().<String, CachedResult<?>>build());
+        ReflectionTestUtils.setField(cache, "rideVersionService", versions);
+    }
+
+    @Test
+    void reusesTheResultUntilARideChanges() {
+        ReflectionTestUtils.setField(cache, "debounceMillis", 0L);
+
+        CachedResult<Integer> first = get();
+        assertEquals(first, get());
+        assertEquals(1, computations.get());
+
+        versions.bump(ride());
+        CachedResult<Integer> second = get();
+
+        assertEquals(2, computations.get());
+        assertNotEquals(first.getVersion(), second.getVersion());
+        assertEquals(versions.global(), second.getVersion());
+    }
+
+    @Test
+    void writesWithinTheDebounceWindowDontForceARecompute() {
+        ReflectionTestUtils.setField(cache, "debounceMillis", 60_000L);
+
+        CachedResult<Integer> first = get();
+        versions.bump(ride());
+        versions.bump(ride());
+
+        // Served with the version it was computed from, so its ETag still moves on later
+        assertEquals(first, get());
+        assertEquals(1, computations.get());
+    }
+
+    @Test
+    void invalidateAllForcesARecompute() {
+        ReflectionTestUtils.setField(cache, "debounceMillis", 60_000L);
+
+        get();
+        cache.invalidateAll();
+        get();
+
+        assertEquals(2, computations.get());
+    }
+
+    private CachedResult<Integer> get() {
+        return cache.get(AnalyticsCache.STATUS_SUMMARY, computations::incrementAndGet);
+    }
+
+    private static Ride ride() {
+        Ride ride = new Ride();
+        ride.setPassengerUsername("alice");
+        return ride;
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.uberbackend.service;
+
+import org.example.uberbackend.dto.NearbyDriver;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DriverLocationIndexTest {
+
+    @Test
+    void returnsNearestDriversInDistanceOrder() {
+        DriverLocationIndex index = newIndex();
+        index.update("far", 40.80, -73.98);
+        index.update("near", 40.759, -73.985);
+        index.update("middle", 40.77, -73.985);
+        index.update("outside", 41.50, -73.985);
+
+        List<String> names = index.nearest(40.758, -73.9855, 3, 10).stream().map(NearbyDriver::getUsername).toList();
+        assertEquals(List.of("near", "middle", "far"), names);
+    }
+
+    @Test
+    void findsDriversAcrossTheAntimeridian() {
+        DriverLocationIndex index = newIndex();
+        index.update("east", -17.0, 179.995);
+
+        List<NearbyDriver> found = index.nearest(-17.0, -179.995, 1, 5);
+        assertEquals(1, found.size());
+        assertTrue(found.get(0).getDistanceKm() < 2, "distance was " + found.get(0).getDistanceKm());
+    }
+
+    @Test
+    void coversTheFullRadiusAtHighLatitude() {
+        DriverLocationIndex index = newIndex();
+        // ~20 km east at 78N spans dozens of longitude cells
+        index.update("longyearbyen", 78.22, 16.5);
+
+        List<NearbyDriver> found = index.nearest(78.22, 15.65, 1, 25);
+        assertEquals(List.of("longyearbyen"), found.stream().map(NearbyDriver::getUsername).toList());
+    }
+
+    private static DriverLocationIndex newIndex() {
+        DriverLocationIndex index = new DriverLocationIndex();
+        ReflectionTestUtils.setField(index, "ttlSeconds", 60L);
+        return index;
+    }
+}
@@ -0,0 +1,192 @@
+package org.example.uberbackend.service;
+
+import org.example.uberbackend.model.GeoLocation;
+import org.example.uberbackend.model.Ride;
+import org.example.uberbackend.model.RideStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OpenRideQueueTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 12, 12, 8, 0);
+
+    @Test
+    void servesOldestRidesFirstAcrossAreas() {
+        OpenRideQueue queue = new OpenRideQueue();
+        queue.offer(ride("c", 3, new GeoLocation(40.7, -74.0)));
+        queue.offer(ride("a", 1, null));
+        queue.offer(ride("b", 2, new GeoLocation(51.5, -0.1)));
+
+        List<String> ids = queue.oldest(10, null).stream().map(Ride::getId).toList();
+        assertEquals(List.of("a", "b", "c"), ids);
+
+        List<String> london = queue.oldest(10, OpenRideQueue.areaOf(51.5, -0.1)).stream().map(Ride::getId).toList();
+        assertEquals(List.of("b"), london);
+    }
+
+    @Test
+    void claimedRidesLeaveTheQueue() {
+        OpenRideQueue queue = new OpenRideQueue();
+        queue.offer(ride("a", 1, null));
+
+        assertEquals("a", queue.claim("a").getId());
+        assertNull(queue.claim("a"));
+        assertTrue(queue.oldest(10, null).isEmpty());
+    }
+
+    @Test
+    void concurrentDriversNeverClaimTheSameRide() throws Exception {
+        int rides = 2_000;
+        int drivers = 16;
+        OpenRideQueue queue = new OpenRideQueue();
+        for (int i = 0; i < rides; i++) {
+            queue.offer(ride("ride-" + i, i, i % 2 == 0 ? new GeoLocation(40.7, -74.0) : null));
+        }
+
+        Set<String> claimed = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(drivers);
+        List<Future<Integer>> results = new ArrayList<>();
+
+        for (int d = 0; d < drivers; d++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                int mine = 0;
+                // Every driver races for the same oldest rides, like polling /api/rides/open
+                while (queue.size() > 0) {
+                    for (Ride candidate : queue.oldest(5, null)) {
+                        if (queue.claim(candidate.getId()) != null) {
+                            mine++;
+                            if (!claimed.add(candidate.getId())) {
+                                duplicates.incrementAndGet();
+                            }
+                        }
+                    }
+                }
+                return mine;
+            }));
+        }
+
+        start.countDown();
+        int total = 0;
+        for (Future<Integer> result : results) {
+            total += result.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(0, duplicates.get());
+        assertEquals(rides, total);
+        assertEquals(rides, claimed.size());
+    }
+
+    @Test
+    void ridesLeftOutWhileFullAreReloadedOnceThereIsRoom() {
+        List<Ride> requested = List.of(ride("a", 1, null), ride("b", 2, null), ride("c", 3, null));
+        OpenRideQueue queue = new OpenRideQueue();
+        ReflectionTestUtils.setField(queue, "maxSize", 2);
+        // MongoDB still has every REQUESTED ride, oldest first
+        ReflectionTestUtils.setField(queue, "rideReader", new RideReader() {
+            @Override
+            public Stream<Ride> stream(Query query) {
+                return requested.stream().filter(ride -> ride.getStatus() == RideStatus.REQUESTED);
+            }
+        });
+        requested.forEach(queue::offer);
+
+        assertEquals(2, queue.size());
+        assertEquals(1, queue.getDroppedCount());
+
+        // No room yet: nothing to reload
+        queue.refillAfterOverflow();
+        assertEquals(List.of("a", "b"), queue.oldest(10, null).stream().map(Ride::getId).toList());
+
+        queue.claim("a").setStatus(RideStatus.ACCEPTED);
+        queue.refillAfterOverflow();
+
+        assertEquals(List.of("b", "c"), queue.oldest(10, null).stream().map(Ride::getId).toList());
+    }
+
+    @Test
+    void pagesSkipEntriesWhoseRideIsGone() {
+        OpenRideQueue queue = new OpenRideQueue();
+        for (int i = 0; i < 5; i++) {
+            queue.offer(ride("r" + i, i, null));
+        }
+        // Leave the two oldest entries behind in their shard, as a claim in flight would
+        Map<String, Ride> open = openMap(queue);
+        open.remove("r0");
+        open.remove("r1");
+
+        assertEquals(List.of("r2", "r3"), queue.oldest(2, null).stream().map(Ride::getId).toList());
+        assertEquals(List.of("r2", "r3"), queue.oldest(2, OpenRideQueue.UNLOCATED).stream().map(Ride::getId).toList());
+    }
+
+    @Test
+    void racingOffersAndClaimsLeaveNoOrphans() throws Exception {
+        int rounds = 20_000;
+        OpenRideQueue queue = new OpenRideQueue();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+
+        for (int i = 0; i < rounds; i++) {
+            Ride ride = ride("ride-" + i, i, null);
+            CountDownLatch start = new CountDownLatch(1);
+            Future<?> offer = pool.submit(() -> {
+                start.await();
+                return queue.offer(ride);
+            });
+            Future<?> claim = pool.submit(() -> {
+                start.await();
+                return queue.claim(ride.getId());
+            });
+            start.countDown();
+            offer.get(5, TimeUnit.SECONDS);
+            claim.get(5, TimeUnit.SECONDS);
+            // Whoever won, a ride left open must still be claimable and listed
+            queue.claim(ride.getId());
+        }
+        pool.shutdown();
+
+        assertEquals(0, queue.size());
+        Map<String, NavigableSet<?>> shards = shardMap(queue);
+        assertTrue(shards.values().stream().allMatch(Set::isEmpty), "orphaned shard entries left behind");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Ride> openMap(OpenRideQueue queue) {
+        return (Map<String, Ride>) ReflectionTestUtils.getField(queue, "open");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, NavigableSet<?>> shardMap(OpenRideQueue queue) {
+        return (Map<String, NavigableSet<?>>) ReflectionTestUtils.getField(queue, "shards");
+    }
+
+    private static Ride ride(String id, int minute, GeoLocation pickup) {
+        Ride ride = new Ride();
+        ride.setId(id);
+        ride.setStatus(RideStatus.REQUESTED);
+        ride.setCreatedAt(START.plusMinutes(minute));
+        ride.setPickupCoordinates(pickup);
+        return ride;
+    }
+}
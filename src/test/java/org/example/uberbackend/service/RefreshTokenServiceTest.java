@@ -0,0 +1,119 @@
+package org.example.uberbackend.service;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.example.uberbackend.model.RefreshToken;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RefreshTokenServiceTest {
+
+    // Username -> current role; a missing entry is a deleted user
+    private final Map<String, String> users = new ConcurrentHashMap<>();
+    private MongoServer server;
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private RefreshTokenService refreshTokens;
+
+    @BeforeEach
+    void startMongo() {
+        server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        client = MongoClients.create("mongodb://" + address.getHostString() + ":" + address.getPort());
+        mongoTemplate = new MongoTemplate(client, "uberdb_refresh");
+
+        UserService userService = new UserService() {
+            @Override
+            public UserDetails loadCachedUser(String username) {
+                String role = users.get(username);
+                if (role == null) {
+                    throw new UsernameNotFoundException("User not found");
+                }
+                return new User(username, "hash", List.of(new SimpleGrantedAuthority(role)));
+            }
+        };
+        refreshTokens = new RefreshTokenService();
+        ReflectionTestUtils.setField(refreshTokens, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(refreshTokens, "userService", userService);
+        ReflectionTestUtils.setField(refreshTokens, "refreshExpirationMs", 60_000L);
+
+        users.put("alice", "ROLE_USER");
+    }
+
+    @AfterEach
+    void stopMongo() {
+        client.close();
+        server.shutdownNow();
+    }
+
+    @Test
+    void rotationHandsOutASuccessorWithTheCurrentRole() {
+        String first = refreshTokens.issue("alice");
+        // Promoted after logging in
+        users.put("alice", "ROLE_DRIVER");
+
+        RefreshTokenService.Issued issued = refreshTokens.rotate(first);
+
+        assertNotEquals(first, issued.token());
+        assertEquals("alice", issued.username());
+        assertEquals("ROLE_DRIVER", issued.role());
+        // The successor can be rotated in turn
+        assertEquals("alice", refreshTokens.rotate(issued.token()).username());
+    }
+
+    @Test
+    void reusingARotatedTokenRevokesItsFamily() {
+        String stolen = refreshTokens.issue("alice");
+        String otherLogin = refreshTokens.issue("alice");
+        String successor = refreshTokens.rotate(stolen).token();
+
+        assertUnauthorized(stolen);
+
+        // The owner's current token is gone as well, but not a separate login
+        assertUnauthorized(successor);
+        assertEquals("alice", refreshTokens.rotate(otherLogin).username());
+    }
+
+    @Test
+    void aDeletedUsersFamilyIsRevokedInsteadOfRenewed() {
+        String token = refreshTokens.issue("alice");
+        users.remove("alice");
+
+        assertUnauthorized(token);
+        assertEquals(0, mongoTemplate.count(new Query(), RefreshToken.class));
+    }
+
+    @Test
+    void unknownAndRevokedTokensAreRejected() {
+        assertUnauthorized("not-a-token");
+
+        String token = refreshTokens.issue("alice");
+        refreshTokens.revoke(token);
+        assertUnauthorized(token);
+    }
+
+    private void assertUnauthorized(String token) {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> refreshTokens.rotate(token));
+        assertEquals(HttpStatus.UNAUTHORIZED, e.getStatusCode());
+    }
+}
@@ -0,0 +1,234 @@
+package org.example.uberbackend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.uberbackend.dto.RideEvent;
+import org.example.uberbackend.model.Ride;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class RideEventBusTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile boolean blockSends;
+    private RideEventBus bus;
+
+    @BeforeEach
+    void createBus() {
+        bus = new RideEventBus() {
+            @Override
+            SseEmitter createEmitter(long timeout) {
+                return new RecordingEmitter();
+            }
+        };
+        ReflectionTestUtils.setField(bus, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(bus, "bufferSize", 4);
+        ReflectionTestUtils.setField(bus, "maxSubscribers", 100);
+        ReflectionTestUtils.setField(bus, "maxPerUser", 2);
+        ReflectionTestUtils.setField(bus, "timeoutMs", 60_000L);
+        ReflectionTestUtils.setField(bus, "sendTimeoutMs", 50L);
+        ReflectionTestUtils.setField(bus, "batchPreview", 2);
+        bus.start();
+    }
+
+    @AfterEach
+    void stopBus() {
+        release.countDown();
+        bus.stop();
+    }
+
+    @Test
+    void eventsReachPassengerDriverAndOpenRideWatchers() {
+        RecordingEmitter passenger = subscribe("alice", false);
+        RecordingEmitter driver = subscribe("bob", false);
+        RecordingEmitter watcher = subscribe("carol", true);
+
+        bus.publish(RideEvent.Type.CREATED, ride("alice", null));
+        bus.publish(RideEvent.Type.ACCEPTED, ride("alice", "bob"));
+        bus.publish(RideEvent.Type.COMPLETED, ride("alice", "bob"));
+
+        awaitUntil(() -> passenger.events().size() == 3 && driver.events().size() == 2 && watcher.events().size() == 2);
+        assertEquals(List.of("CREATED", "ACCEPTED", "COMPLETED"), passenger.events());
+        assertEquals(List.of("ACCEPTED", "COMPLETED"), driver.events());
+        // Watchers learn about new rides and when they are taken, not how they end
+        assertEquals(List.of("CREATED", "ACCEPTED"), watcher.events());
+    }
+
+    @Test
+    void aBatchLargerThanTheBufferArrivesAsOneEvent() {
+        RecordingEmitter passenger = subscribe("alice", false);
+        RecordingEmitter watcher = subscribe("carol", true);
+
+        // Ten rides against a buffer of four
+        List<Ride> rides = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            rides.add(ride("alice", null));
+        }
+        rides.add(ride("dave", null));
+        bus.publishCreated(rides);
+
+        awaitUntil(() -> passenger.events().size() == 1 && watcher.events().size() == 1);
+        assertEquals(List.of("CREATED_BATCH"), passenger.events());
+        assertEquals(List.of("CREATED_BATCH"), watcher.events());
+        assertEquals(2, bus.getSubscriberCount());
+        assertEquals(0.0, meterRegistry.counter("ride.events.overflow.disconnects").count());
+    }
+
+    @Test
+    void subscribersSeeTheSameIdForTheSameEvent() {
+        RecordingEmitter passenger = subscribe("alice", false);
+        RecordingEmitter watcher = subscribe("carol", true);
+
+        bus.publish(RideEvent.Type.CREATED, ride("alice", null));
+        bus.publish(RideEvent.Type.CREATED, ride("alice", null));
+
+        awaitUntil(() -> passenger.ids().size() == 2 && watcher.ids().size() == 2);
+        assertEquals(passenger.ids(), watcher.ids());
+    }
+
+    @Test
+    void subscriberThatFallsBehindIsDisconnectedAndRemoved() {
+        blockSends = true;
+        RecordingEmitter slow = subscribe("alice", false);
+
+        // One event is stuck in the socket write, the next four fill the buffer, the sixth overflows
+        for (int i = 0; i < 6; i++) {
+            bus.publish(RideEvent.Type.CREATED, ride("alice", null));
+        }
+        release.countDown();
+
+        awaitUntil(() -> slow.completed);
+        assertEquals(0, bus.getSubscriberCount());
+        assertEquals(1.0, meterRegistry.counter("ride.events.overflow.disconnects").count());
+
+        bus.publish(RideEvent.Type.CREATED, ride("alice", null));
+        assertTrue(slow.events().size() <= 5, "no events after the disconnect");
+    }
+
+    @Test
+    void stalledWriteIsAbortedAndFreesTheSlot() throws Exception {
+        blockSends = true;
+        RecordingEmitter stuck = subscribe("alice", false);
+        bus.publish(RideEvent.Type.CREATED, ride("alice", null));
+        awaitUntil(() -> stuck.sending);
+
+        Thread.sleep(100);
+        bus.abortStalledSends();
+
+        assertEquals(0, bus.getSubscriberCount());
+        assertEquals(1.0, meterRegistry.counter("ride.events.stalled.disconnects").count());
+        // The interrupt ends the blocked write and the drain closes the stream
+        awaitUntil(() -> stuck.failed);
+        assertTrue(byUser().isEmpty());
+    }
+
+    @Test
+    void eachUserHasALimitedNumberOfStreams() {
+        subscribe("alice", false);
+        subscribe("alice", true);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> bus.subscribe("alice", false));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, e.getStatusCode());
+        assertEquals(2, bus.getSubscriberCount());
+
+        // Another user is not affected by alice's limit
+        subscribe("bob", false);
+        assertEquals(3, bus.getSubscriberCount());
+    }
+
+    private RecordingEmitter subscribe(String username, boolean openRides) {
+        return (RecordingEmitter) bus.subscribe(username, openRides);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, ?> byUser() {
+        return (Map<String, ?>) ReflectionTestUtils.getField(bus, "byUser");
+    }
+
+    private static Ride ride(String passenger, String driver) {
+        Ride ride = new Ride();
+        ride.setId("ride-1");
+        ride.setPassengerUsername(passenger);
+        ride.setDriverUsername(driver);
+        return ride;
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("condition not met within 5 s");
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    // Records event names instead of writing to a response; optionally blocks every
+    // write until released or interrupted, like a client that stopped reading
+    private final class RecordingEmitter extends SseEmitter {
+        private final List<String> names = new CopyOnWriteArrayList<>();
+        private final List<String> ids = new CopyOnWriteArrayList<>();
+        volatile boolean sending;
+        volatile boolean completed;
+        volatile boolean failed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending = true;
+            if (blockSends) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException("write interrupted", e);
+                }
+            }
+            for (DataWithMediaType part : builder.build()) {
+                String text = part.getData().toString();
+                int start = text.indexOf("event:");
+                if (start >= 0) {
+                    names.add(text.substring(start + 6, text.indexOf('\n', start)));
+                }
+                int id = text.indexOf("id:");
+                if (id >= 0) {
+                    ids.add(text.substring(id + 3, text.indexOf('\n', id)));
+                }
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            failed = true;
+        }
+
+        List<String> events() {
+            return names;
+        }
+
+        List<String> ids() {
+            return ids;
+        }
+    }
+}
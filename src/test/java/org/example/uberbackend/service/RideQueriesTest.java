@@ -0,0 +1,38 @@
+package org.example.uberbackend.service;
+
+import org.bson.Document;
+import org.example.uberbackend.model.RideStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RideQueriesTest {
+
+    @Test
+    void dateRangeCoversWholeDaysOfCreatedAt() {
+        Document range = (Document) RideQueries.dateRange(LocalDate.of(2025, 12, 1), LocalDate.of(2025, 12, 3))
+                .getQueryObject().get("createdAt");
+
+        assertEquals(LocalDateTime.of(2025, 12, 1, 0, 0), range.get("$gte"));
+        assertEquals(LocalDateTime.of(2025, 12, 4, 0, 0), range.get("$lt"));
+    }
+
+    @Test
+    void onDateIsASingleDayRange() {
+        LocalDate day = LocalDate.of(2025, 12, 12);
+        assertEquals(RideQueries.dateRange(day, day).getQueryObject(), RideQueries.onDate(day).getQueryObject());
+    }
+
+    @Test
+    void statusFiltersIgnoreCaseAndRejectUnknownNames() {
+        assertEquals(RideStatus.COMPLETED, RideQueries.byUserAndStatus("alice", "completed").getQueryObject().get("status"));
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> RideQueries.byUserAndStatus("alice", "cancelled"));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    }
+}
@@ -0,0 +1,136 @@
+package org.example.uberbackend.service;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.example.uberbackend.config.MongoConfig;
+import org.example.uberbackend.model.Ride;
+import org.example.uberbackend.model.RideStatus;
+import org.example.uberbackend.util.RideFields;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.DefaultDbRefResolver;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.net.InetSocketAddress;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RideReaderTest {
+
+    private MongoServer server;
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private RideSchemaMigration migration;
+    private RideReader reader;
+
+    @BeforeEach
+    void startMongo() {
+        server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        client = MongoClients.create("mongodb://" + address.getHostString() + ":" + address.getPort());
+        // Status codes need the custom conversions, as in the app
+        MongoCustomConversions conversions = new MongoConfig().mongoCustomConversions();
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        SimpleMongoClientDatabaseFactory factory = new SimpleMongoClientDatabaseFactory(client, "uberdb_reader");
+        MappingMongoConverter converter = new MappingMongoConverter(new DefaultDbRefResolver(factory), mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        mongoTemplate = new MongoTemplate(factory, converter);
+
+        migration = new RideSchemaMigration();
+        reader = new RideReader();
+        ReflectionTestUtils.setField(reader, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(reader, "rideSchemaMigration", migration);
+
+        // One ride the migration hasn't reached, one written in the new format
+        Date yesterday = Date.from(LocalDate.now().minusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        mongoTemplate.getCollection("rides").insertOne(new Document("_id", new ObjectId())
+                .append("passengerUsername", "alice")
+                .append("driverUsername", "dave")
+                .append("pickupLocation", "Old Town")
+                .append("fare", 20.0)
+                .append("status", "ACCEPTED")
+                .append("createdAt", yesterday)
+                .append("createdDate", LocalDate.now().minusDays(1).toString()));
+        mongoTemplate.getCollection("rides").insertOne(new Document("_id", new ObjectId())
+                .append(Ride.PASSENGER, "alice")
+                .append(Ride.DRIVER, "dave")
+                .append(Ride.PICKUP_LOCATION, "New Town")
+                .append(Ride.FARE, 10.0)
+                .append(Ride.STATUS, RideStatus.ACCEPTED.getCode())
+                .append(Ride.CREATED_AT, new Date()));
+    }
+
+    @AfterEach
+    void stopMongo() {
+        client.close();
+        server.shutdownNow();
+    }
+
+    @Test
+    void queriesMatchBothSchemasWhileTheMigrationRuns() {
+        assertEquals(2, reader.find(RideQueries.byUser("alice")).size());
+        assertEquals(2, reader.find(RideQueries.byUserAndStatus("alice", "ACCEPTED")).size());
+        assertEquals(0, reader.find(RideQueries.byUserAndStatus("alice", "REQUESTED")).size());
+        assertEquals(2, reader.find(RideQueries.driverActive("dave")).size());
+        assertEquals(1, reader.find(RideQueries.onDate(LocalDate.now().minusDays(1))).size());
+        assertEquals(0, reader.find(RideQueries.byUser("bob")).size());
+    }
+
+    @Test
+    void legacyRidesComeBackInTheNewFormat() {
+        List<Ride> rides = reader.find(RideQueries.sortedByFare("desc"));
+
+        // The legacy ride has no value under the compact sort key, so it sorts last here
+        assertEquals(List.of(10.0, 20.0), rides.stream().map(Ride::getFare).toList());
+        Ride legacy = rides.get(1);
+        assertEquals("alice", legacy.getPassengerUsername());
+        assertEquals(RideStatus.ACCEPTED, legacy.getStatus());
+        assertEquals("Old Town", legacy.getPickupLocation());
+    }
+
+    @Test
+    void projectionsIncludeTheLegacyNames() {
+        List<Ride> rides = reader.find(RideFields.parse("passengerUsername,fare").applyTo(RideQueries.byUser("alice")));
+
+        assertEquals(2, rides.size());
+        rides.forEach(ride -> {
+            assertEquals("alice", ride.getPassengerUsername());
+            assertNull(ride.getPickupLocation());
+        });
+    }
+
+    @Test
+    void streamsMatchBothSchemas() {
+        try (Stream<Ride> rides = reader.stream(RideQueries.byUser("alice"))) {
+            assertEquals(2, rides.count());
+        }
+    }
+
+    @Test
+    void onlyTheNewSchemaIsQueriedOnceTheMigrationIsDone() {
+        ReflectionTestUtils.setField(migration, "done", true);
+
+        List<Ride> rides = reader.find(RideQueries.byUser("alice"));
+
+        assertEquals(1, rides.size());
+        assertEquals("New Town", rides.get(0).getPickupLocation());
+    }
+}
@@ -0,0 +1,199 @@
+package org.example.uberbackend.service;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.example.uberbackend.model.Ride;
+import org.example.uberbackend.model.RideStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RideSchemaMigrationTest {
+
+    private MongoServer server;
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void startMongo() {
+        server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        client = MongoClients.create("mongodb://" + address.getHostString() + ":" + address.getPort());
+        mongoTemplate = new MongoTemplate(client, "uberdb_migration");
+    }
+
+    @AfterEach
+    void stopMongo() {
+        client.close();
+        server.shutdownNow();
+    }
+
+    @Test
+    void upgradeRenamesFieldsAndEncodesStatus() {
+        Date createdAt = new Date();
+        Document ride = new Document("_id", new ObjectId())
+                .append("passengerUsername", "alice")
+                .append("driverUsername", null)
+                .append("fare", 12.5)
+                .append("status", "ACCEPTED")
+                .append("createdAt", createdAt)
+                .append("createdDate", "2025-12-12");
+
+        assertTrue(RideSchemaMigration.isLegacy(ride));
+        RideSchemaMigration.upgrade(ride);
+
+        assertEquals("alice", ride.get(Ride.PASSENGER));
+        assertEquals(12.5, ride.get(Ride.FARE));
+        assertEquals(RideStatus.ACCEPTED.getCode(), ride.get(Ride.STATUS));
+        assertEquals(createdAt, ride.get(Ride.CREATED_AT));
+        // A legacy null is dropped, not copied as an explicit null
+        assertFalse(ride.containsKey(Ride.DRIVER));
+        assertFalse(RideSchemaMigration.isLegacy(ride));
+    }
+
+    @Test
+    void upgradeKeepsValuesAlreadyStoredUnderShortNames() {
+        Document ride = new Document("p", "new").append("passengerUsername", "old")
+                .append(Ride.STATUS, RideStatus.COMPLETED.getCode()).append("status", "REQUESTED");
+
+        RideSchemaMigration.upgrade(ride);
+
+        assertEquals("new", ride.get(Ride.PASSENGER));
+        assertEquals(RideStatus.COMPLETED.getCode(), ride.get(Ride.STATUS));
+    }
+
+    @Test
+    void upgradeAcceptsStatusInAnyCaseAndKeepsUnknownOnes() {
+        Document lowercase = new Document("status", " accepted ");
+        RideSchemaMigration.upgrade(lowercase);
+        assertEquals(RideStatus.ACCEPTED.getCode(), lowercase.get(Ride.STATUS));
+        assertFalse(lowercase.containsKey("status"));
+
+        Document unknown = new Document("status", "CANCELLED").append("fare", 3.0);
+        RideSchemaMigration.upgrade(unknown);
+        assertEquals("CANCELLED", unknown.get("status"));
+        assertNull(unknown.get(Ride.STATUS));
+        assertEquals(3.0, unknown.get(Ride.FARE));
+    }
+
+    @Test
+    void onlyDocumentsWithOldFieldNamesAreLegacy() {
+        assertFalse(RideSchemaMigration.isLegacy(new Document(Ride.PASSENGER, "alice").append(Ride.STATUS, 1)));
+        assertTrue(RideSchemaMigration.isLegacy(new Document("dropLocation", "Airport")));
+        assertTrue(RideSchemaMigration.isLegacy(new Document("createdDate", "2025-12-12")));
+    }
+
+    @Test
+    void resumesAfterTheCheckpointedBatch() {
+        MongoCollection<Document> rides = mongoTemplate.getCollection("rides");
+        List<ObjectId> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ObjectId id = new ObjectId();
+            ids.add(id);
+            rides.insertOne(new Document("_id", id)
+                    .append("passengerUsername", "rider-" + i)
+                    .append("status", i == 4 ? "unknown" : "requested")
+                    .append("createdAt", new Date()));
+        }
+        // A previous run got through the first two rides before it stopped
+        mongoTemplate.save(new Document("_id", RideSchemaMigration.NAME)
+                .append("lastId", ids.get(1)).append("migrated", 2L).append("done", false), RideSchemaMigration.MIGRATIONS);
+
+        RideSchemaMigration migration = migration(2);
+        migration.resume();
+
+        assertTrue(migration.isDone());
+        // Rides before the checkpoint are not read again
+        assertTrue(rides.find(new Document("_id", ids.get(0))).first().containsKey("passengerUsername"));
+        for (int i = 2; i < 5; i++) {
+            Document ride = rides.find(new Document("_id", ids.get(i))).first();
+            assertEquals("rider-" + i, ride.get(Ride.PASSENGER));
+            assertFalse(ride.containsKey("passengerUsername"));
+        }
+        assertEquals(RideStatus.REQUESTED.getCode(), rides.find(new Document("_id", ids.get(2))).first().get(Ride.STATUS));
+        assertEquals("unknown", rides.find(new Document("_id", ids.get(4))).first().get("status"));
+
+        Document checkpoint = mongoTemplate.findById(RideSchemaMigration.NAME, Document.class, RideSchemaMigration.MIGRATIONS);
+        assertTrue(checkpoint.getBoolean("done"));
+        assertEquals(5L, checkpoint.get("migrated", Number.class).longValue());
+    }
+
+    @Test
+    void convertUpgradesOneRideAheadOfTheBackgroundWalk() {
+        MongoCollection<Document> rides = mongoTemplate.getCollection("rides");
+        ObjectId legacy = new ObjectId();
+        ObjectId other = new ObjectId();
+        rides.insertOne(new Document("_id", legacy).append("passengerUsername", "alice").append("status", "REQUESTED"));
+        rides.insertOne(new Document("_id", other).append("passengerUsername", "bob").append("status", "REQUESTED"));
+
+        RideSchemaMigration migration = migration(100);
+        migration.convert(legacy.toHexString());
+
+        Document converted = rides.find(new Document("_id", legacy)).first();
+        assertEquals("alice", converted.get(Ride.PASSENGER));
+        assertEquals(RideStatus.REQUESTED.getCode(), converted.get(Ride.STATUS));
+        assertFalse(RideSchemaMigration.isLegacy(converted));
+        assertTrue(RideSchemaMigration.isLegacy(rides.find(new Document("_id", other)).first()));
+
+        // A ride updated after its conversion is not replaced again, by convert() or the walk
+        rides.updateOne(new Document("_id", legacy), new Document("$set", new Document(Ride.STATUS, RideStatus.ACCEPTED.getCode())));
+        migration.convert(legacy.toHexString());
+        migration.resume();
+        assertEquals(RideStatus.ACCEPTED.getCode(), rides.find(new Document("_id", legacy)).first().get(Ride.STATUS));
+        assertTrue(migration.isDone());
+    }
+
+    @Test
+    void runsInTheBackground() {
+        mongoTemplate.getCollection("rides").insertOne(new Document("passengerUsername", "alice").append("status", "REQUESTED"));
+
+        RideSchemaMigration migration = migration(100);
+        migration.run(null);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!migration.isDone() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertTrue(migration.isDone());
+        assertEquals("alice", mongoTemplate.getCollection("rides").find().first().get(Ride.PASSENGER));
+    }
+
+    @Test
+    void disabledMigrationStaysUnfinished() {
+        mongoTemplate.getCollection("rides").insertOne(new Document("status", "REQUESTED"));
+
+        RideSchemaMigration migration = migration(100);
+        ReflectionTestUtils.setField(migration, "enabled", false);
+        migration.resume();
+
+        assertFalse(migration.isDone());
+        assertTrue(mongoTemplate.getCollection("rides").find().first().containsKey("status"));
+    }
+
+    private RideSchemaMigration migration(int batchSize) {
+        RideSchemaMigration migration = new RideSchemaMigration();
+        ReflectionTestUtils.setField(migration, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(migration, "enabled", true);
+        ReflectionTestUtils.setField(migration, "batchSize", batchSize);
+        ReflectionTestUtils.setField(migration, "pauseMillis", 0L);
+        ReflectionTestUtils.setField(migration, "running", true);
+        return migration;
+    }
+}
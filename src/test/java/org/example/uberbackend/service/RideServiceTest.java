@@ -0,0 +1,142 @@
+package org.example.uberbackend.service;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.example.uberbackend.config.MongoConfig;
+import org.example.uberbackend.dto.BatchItemResult;
+import org.example.uberbackend.dto.RidePage;
+import org.example.uberbackend.model.Ride;
+import org.example.uberbackend.model.RideStatus;
+import org.example.uberbackend.util.RideFields;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.DefaultDbRefResolver;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RideServiceTest {
+
+    private MongoServer server;
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private OpenRideQueue openRideQueue;
+    private RideService rideService;
+
+    @BeforeEach
+    void startMongo() {
+        server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        client = MongoClients.create("mongodb://" + address.getHostString() + ":" + address.getPort());
+        // Status codes need the custom conversions, as in the app
+        MongoCustomConversions conversions = new MongoConfig().mongoCustomConversions();
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        SimpleMongoClientDatabaseFactory factory = new SimpleMongoClientDatabaseFactory(client, "uberdb_rides");
+        MappingMongoConverter converter = new MappingMongoConverter(new DefaultDbRefResolver(factory), mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        mongoTemplate = new MongoTemplate(factory, converter);
+
+        RideSchemaMigration migration = new RideSchemaMigration();
+        ReflectionTestUtils.setField(migration, "done", true);
+        RideReader reader = new RideReader();
+        ReflectionTestUtils.setField(reader, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(reader, "rideSchemaMigration", migration);
+        RideStatsService stats = new RideStatsService();
+        ReflectionTestUtils.setField(stats, "mongoTemplate", mongoTemplate);
+        openRideQueue = new OpenRideQueue();
+
+        rideService = new RideService();
+        ReflectionTestUtils.setField(rideService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(rideService, "rideReader", reader);
+        ReflectionTestUtils.setField(rideService, "rideSchemaMigration", migration);
+        ReflectionTestUtils.setField(rideService, "rideStatsService", stats);
+        ReflectionTestUtils.setField(rideService, "openRideQueue", openRideQueue);
+        ReflectionTestUtils.setField(rideService, "rideEventBus", new RideEventBus());
+        ReflectionTestUtils.setField(rideService, "rideVersionService", new RideVersionService());
+    }
+
+    @AfterEach
+    void stopMongo() {
+        client.close();
+        server.shutdownNow();
+    }
+
+    @Test
+    void batchCreateReportsEachItemWhenSomeInsertsFail() {
+        String taken = rideService.createRides("alice", List.of(ride("Old Town"))).get(0).getId();
+        Ride duplicate = ride("Harbour");
+        duplicate.setId(taken);
+
+        List<BatchItemResult> results = rideService.createRides("alice",
+                Arrays.asList(ride("Airport"), duplicate, null, ride("Station")));
+
+        assertEquals(List.of(0, 1, 2, 3), results.stream().map(BatchItemResult::getIndex).toList());
+        assertEquals(List.of("CREATED", "FAILED", "FAILED", "CREATED"),
+                results.stream().map(BatchItemResult::getStatus).toList());
+        assertNotNull(results.get(0).getId());
+        assertNull(results.get(1).getId());
+        assertTrue(results.get(1).getError().contains("duplicate key"), results.get(1).getError());
+        assertEquals("Ride must not be null", results.get(2).getError());
+
+        // The unordered insert went on past the failure; only stored rides are queued
+        assertEquals(3, mongoTemplate.count(new Query(), Ride.class));
+        assertEquals(3, openRideQueue.oldest(10, null).size());
+        Ride stored = mongoTemplate.findById(results.get(3).getId(), Ride.class);
+        assertEquals("alice", stored.getPassengerUsername());
+        assertEquals(RideStatus.REQUESTED, stored.getStatus());
+    }
+
+    @Test
+    void ridesByIdsFollowTheRequestOrder() {
+        List<String> ids = rideService.createRides("alice", List.of(ride("A"), ride("B"), ride("C"))).stream()
+                .map(BatchItemResult::getId)
+                .toList();
+        String unknown = "0123456789abcdef01234567";
+
+        List<Ride> rides = rideService.getRidesByIds(List.of(ids.get(2), unknown, ids.get(0), ids.get(2), ids.get(1)));
+
+        // Unknown ids are skipped and a repeated id comes back once, at its first position
+        assertEquals(List.of("C", "A", "B"), rides.stream().map(Ride::getPickupLocation).toList());
+    }
+
+    @Test
+    void cursorPagesReturnOnlyTheRequestedFields() {
+        rideService.createRides("alice", List.of(ride("A"), ride("B"), ride("C")));
+        RideFields pickup = RideFields.parse("pickupLocation");
+
+        RidePage first = rideService.advancedSearchPage(null, null, "createdAt", "asc", "", 2, pickup);
+        // The projection leaves out createdAt, but the cursor still comes from the sort keys
+        RidePage second = rideService.advancedSearchPage(null, null, "createdAt", "asc", first.getNextCursor(), 2, pickup);
+
+        assertEquals(List.of(Map.of("pickupLocation", "A"), Map.of("pickupLocation", "B")), first.getRides());
+        assertEquals(List.of(Map.of("pickupLocation", "C")), second.getRides());
+        assertNull(second.getNextCursor());
+    }
+
+    private static Ride ride(String pickup) {
+        Ride ride = new Ride();
+        ride.setPickupLocation(pickup);
+        ride.setDropLocation("Downtown");
+        ride.setFare(12.5);
+        return ride;
+    }
+}
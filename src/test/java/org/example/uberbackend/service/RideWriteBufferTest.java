@@ -0,0 +1,213 @@
+package org.example.uberbackend.service;
+
+import org.example.uberbackend.model.Ride;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class RideWriteBufferTest {
+
+    private final ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+    // Batch sizes as the writer saw them, and the rides passed on as written
+    private final List<Integer> batches = new CopyOnWriteArrayList<>();
+    private final List<Ride> written = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch writing = new CountDownLatch(1);
+    private volatile boolean blockWrites;
+    private RideWriteBuffer buffer;
+
+    @BeforeEach
+    void createBuffer() {
+        buffer = new RideWriteBuffer();
+        ReflectionTestUtils.setField(buffer, "enabled", true);
+        ReflectionTestUtils.setField(buffer, "maxBatchSize", 64);
+        ReflectionTestUtils.setField(buffer, "maxDelayMicros", 10_000_000L);
+        ReflectionTestUtils.setField(buffer, "queueCapacity", 100);
+        ReflectionTestUtils.setField(buffer, "timeoutMs", 5_000L);
+    }
+
+    @AfterEach
+    void stopBuffer() throws InterruptedException {
+        release.countDown();
+        buffer.stop();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void flushesAsSoonAsTheBatchIsFull() {
+        ReflectionTestUtils.setField(buffer, "maxBatchSize", 3);
+        start();
+
+        List<CompletableFuture<Ride>> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            results.add(submitAsync(ride("alice")));
+        }
+
+        // Well inside the 10 s delay: the third ride filled the batch
+        results.forEach(result -> assertNotNull(result.orTimeout(2, TimeUnit.SECONDS).join().getId()));
+        assertEquals(List.of(3), batches);
+    }
+
+    @Test
+    void flushesAPartialBatchOnceTheOldestRideHasWaitedMaxDelay() {
+        ReflectionTestUtils.setField(buffer, "maxDelayMicros", 50_000L);
+        start();
+
+        long started = System.nanoTime();
+        Ride ride = buffer.submit(ride("alice"));
+
+        assertTrue(System.nanoTime() - started >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(List.of(1), batches);
+        assertEquals(List.of(ride), written);
+    }
+
+    @Test
+    void eachCallerGetsTheResultOfItsOwnRide() {
+        ReflectionTestUtils.setField(buffer, "maxBatchSize", 2);
+        start();
+
+        CompletableFuture<Ride> good = submitAsync(ride("alice"));
+        CompletableFuture<Ride> bad = submitAsync(ride("mallory"));
+
+        assertEquals("alice", good.join().getPassengerUsername());
+        CompletionException e = assertThrows(CompletionException.class, bad::join);
+        assertEquals("duplicate key for mallory", e.getCause().getMessage());
+        // Only the stored ride goes on to stats, dispatch and events
+        assertEquals(List.of(good.join()), written);
+        assertEquals(List.of(2), batches);
+    }
+
+    @Test
+    void answers503WhenTheQueueIsFull() {
+        ReflectionTestUtils.setField(buffer, "maxBatchSize", 1);
+        ReflectionTestUtils.setField(buffer, "queueCapacity", 1);
+        blockWrites = true;
+        start();
+
+        // The first ride is held in the writer, the second fills the queue
+        submitAsync(ride("alice"));
+        awaitUntil(() -> writing.getCount() == 0);
+        submitAsync(ride("bob"));
+        awaitUntil(() -> queued() == 1);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> buffer.submit(ride("carol")));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+    }
+
+    @Test
+    void aWriteThatOutlastsTheTimeoutReportsTheRideAsStillPending() {
+        ReflectionTestUtils.setField(buffer, "maxBatchSize", 1);
+        ReflectionTestUtils.setField(buffer, "timeoutMs", 50L);
+        blockWrites = true;
+        start();
+
+        Ride ride = ride("alice");
+        RideWriteBuffer.StillPendingException e =
+                assertThrows(RideWriteBuffer.StillPendingException.class, () -> buffer.submit(ride));
+
+        // The caller learns the id the ride will be stored under
+        assertSame(ride, e.getRide());
+        assertNotNull(e.getRide().getId());
+    }
+
+    @Test
+    void stopWritesWhatIsStillQueued() throws Exception {
+        ReflectionTestUtils.setField(buffer, "maxBatchSize", 1);
+        blockWrites = true;
+        start();
+
+        List<CompletableFuture<Ride>> results = new ArrayList<>();
+        results.add(submitAsync(ride("alice")));
+        awaitUntil(() -> writing.getCount() == 0);
+        results.add(submitAsync(ride("bob")));
+        results.add(submitAsync(ride("carol")));
+        awaitUntil(() -> queued() == 2);
+
+        CompletableFuture<Void> stopped = CompletableFuture.runAsync(() -> {
+            try {
+                buffer.stop();
+            } catch (InterruptedException e) {
+                throw new CompletionException(e);
+            }
+        }, callers);
+        awaitUntil(() -> !(boolean) ReflectionTestUtils.getField(buffer, "running"));
+        release.countDown();
+        stopped.get(5, TimeUnit.SECONDS);
+
+        results.forEach(result -> assertNotNull(result.orTimeout(2, TimeUnit.SECONDS).join().getId()));
+        assertEquals(3, written.size());
+        assertEquals(0, queued());
+        // Nothing is accepted after the stop
+        assertThrows(ResponseStatusException.class, () -> buffer.submit(ride("dave")));
+    }
+
+    private void start() {
+        buffer.start(this::write, written::addAll);
+    }
+
+    // Fails the rides of "mallory", like a unique index would; optionally holds every
+    // write until released
+    private List<String> write(List<Ride> rides) {
+        batches.add(rides.size());
+        writing.countDown();
+        if (blockWrites) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<String> errors = new ArrayList<>(Collections.nCopies(rides.size(), null));
+        for (int i = 0; i < rides.size(); i++) {
+            if ("mallory".equals(rides.get(i).getPassengerUsername())) {
+                errors.set(i, "duplicate key for mallory");
+            }
+        }
+        return errors;
+    }
+
+    private CompletableFuture<Ride> submitAsync(Ride ride) {
+        return CompletableFuture.supplyAsync(() -> buffer.submit(ride), callers);
+    }
+
+    private int queued() {
+        return (int) buffer.getStats().get("queued");
+    }
+
+    private static Ride ride(String passenger) {
+        Ride ride = new Ride();
+        ride.setPassengerUsername(passenger);
+        return ride;
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("condition not met within 5 s");
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package org.example.uberbackend.util;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.example.uberbackend.model.Ride;
+import org.example.uberbackend.model.RideStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.json.JsonMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NdjsonWriterTest {
+
+    private static final int LARGE_EXPORT = 50_000;
+    // 100 rides per flush at a few hundred bytes each
+    private static final long MAX_PENDING_BYTES = 64L * 1024;
+    private static final int CURSOR_EXPORT = 5_000;
+    private static final int CURSOR_BATCH = 100;
+
+    private final NdjsonWriter writer = newWriter();
+
+    @Test
+    void writesOneRidePerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = writer.write(IntStream.range(0, 3).mapToObj(NdjsonWriterTest::ride), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, written);
+        assertEquals(3, lines.length);
+        assertTrue(lines[2].startsWith("{") && lines[2].contains("\"pickupLocation\":\"Pickup 2\""));
+    }
+
+    @Test
+    void flushesInBoundedChunksWhenExportingManyRides() throws Exception {
+        // Rides are produced lazily, like a Mongo cursor
+        Stream<Ride> rides = IntStream.range(0, LARGE_EXPORT).mapToObj(NdjsonWriterTest::ride);
+
+        FlushCountingOutputStream out = new FlushCountingOutputStream();
+        long written = writer.write(rides, out);
+
+        assertEquals(LARGE_EXPORT, written);
+        assertTrue(out.bytes > LARGE_EXPORT * 100L, "expected every ride to be serialized");
+        assertEquals(1, out.linesAtFirstFlush, "first line should be flushed on its own");
+        assertTrue(out.flushes >= LARGE_EXPORT / 100, "expected a flush every 100 rides, got " + out.flushes);
+        assertTrue(out.maxPending < MAX_PENDING_BYTES,
+                out.maxPending + " bytes were written between two flushes");
+    }
+
+    @Test
+    void readsTheCursorOnlyOneBatchAheadOfTheResponse() throws Exception {
+        MongoServer server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        BatchCounter batches = new BatchCounter();
+        MongoClient client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString("mongodb://" + address.getHostString() + ":" + address.getPort()))
+                .addCommandListener(batches)
+                .build());
+        try {
+            MongoTemplate mongoTemplate = new MongoTemplate(client, "uberdb_ndjson");
+            List<Document> stored = IntStream.range(0, CURSOR_EXPORT)
+                    .mapToObj(i -> new Document("pickupLocation", "Pickup " + i).append("fare", 10.0 + i % 50))
+                    .toList();
+            mongoTemplate.getCollection("rides").insertMany(stored);
+
+            // Each line written checks how far the cursor has read ahead of it
+            LineCountingOutputStream out = new LineCountingOutputStream(batches);
+            Query query = new Query().cursorBatchSize(CURSOR_BATCH);
+            long written;
+            try (Stream<Document> rides = mongoTemplate.stream(query, Document.class, "rides")) {
+                written = writer.write(rides, out);
+            }
+
+            assertEquals(CURSOR_EXPORT, written);
+            assertEquals(CURSOR_EXPORT, batches.fetched);
+            assertTrue(batches.getMores >= CURSOR_EXPORT / CURSOR_BATCH - 1, batches.getMores + " getMore commands");
+            // Never more than one batch held in memory beyond what was already written
+            assertTrue(out.maxAhead <= CURSOR_BATCH, "the cursor ran " + out.maxAhead + " documents ahead");
+        } finally {
+            client.close();
+            server.shutdownNow();
+        }
+    }
+
+    private static NdjsonWriter newWriter() {
+        NdjsonWriter ndjsonWriter = new NdjsonWriter();
+        ReflectionTestUtils.setField(ndjsonWriter, "objectMapper", JsonMapper.builder().build());
+        return ndjsonWriter;
+    }
+
+    private static Ride ride(int i) {
+        Ride ride = new Ride();
+        ride.setId(String.valueOf(i));
+        ride.setPassengerUsername("passenger" + i);
+        ride.setPickupLocation("Pickup " + i);
+        ride.setDropLocation("Drop " + i);
+        ride.setFare(10.0 + i % 50);
+        ride.setDistanceKm(1.0 + i % 30);
+        ride.setStatus(RideStatus.REQUESTED);
+        ride.setCreatedAt(LocalDateTime.of(2025, 12, 12, 10, 30));
+        return ride;
+    }
+
+    // Documents returned by find and getMore replies
+    private static class BatchCounter implements CommandListener {
+        volatile long fetched;
+        volatile long getMores;
+
+        @Override
+        public void commandSucceeded(CommandSucceededEvent event) {
+            BsonDocument cursor = event.getResponse().getDocument("cursor", null);
+            if (cursor == null) {
+                return;
+            }
+            if (event.getCommandName().equals("getMore")) {
+                getMores++;
+                fetched += cursor.getArray("nextBatch").size();
+            } else if (event.getCommandName().equals("find")) {
+                fetched += cursor.getArray("firstBatch").size();
+            }
+        }
+    }
+
+    private static class LineCountingOutputStream extends OutputStream {
+        private final BatchCounter batches;
+        long lines;
+        long maxAhead;
+
+        LineCountingOutputStream(BatchCounter batches) {
+            this.batches = batches;
+        }
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+                maxAhead = Math.max(maxAhead, batches.fetched - lines);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+    }
+
+    // Records how much output piles up between flushes, i.e. what a servlet
+    // response would have to buffer before bytes reach the client
+    private static class FlushCountingOutputStream extends OutputStream {
+        long bytes;
+        long pending;
+        long maxPending;
+        long flushes;
+        long lines;
+        long linesAtFirstFlush;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            pending++;
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+            pending += len;
+        }
+
+        @Override
+        public void flush() {
+            if (flushes == 0) {
+                linesAtFirstFlush = lines;
+            }
+            maxPending = Math.max(maxPending, pending);
+            pending = 0;
+            flushes++;
+        }
+    }
+}
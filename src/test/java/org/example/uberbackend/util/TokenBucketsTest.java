@@ -0,0 +1,61 @@
+package org.example.uberbackend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketsTest {
+
+    @Test
+    void allowsABurstThenAsksToWait() {
+        TokenBuckets buckets = new TokenBuckets(1024);
+        TokenBuckets.Limit limit = new TokenBuckets.Limit(1, 3);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, buckets.tryAcquire("user:alice", limit), "request " + i + " is within the burst");
+        }
+        long wait = buckets.tryAcquire("user:alice", limit);
+        // At one token per second the next one is (almost) a full second away
+        assertTrue(wait > 900 && wait <= 1000, "wait was " + wait + " ms");
+    }
+
+    @Test
+    void waitMatchesTheRefillRate() {
+        TokenBuckets buckets = new TokenBuckets(1024);
+        TokenBuckets.Limit limit = new TokenBuckets.Limit(4, 1);
+
+        assertEquals(0, buckets.tryAcquire("ip:10.0.0.1", limit));
+        long wait = buckets.tryAcquire("ip:10.0.0.1", limit);
+        assertTrue(wait > 200 && wait <= 250, "wait was " + wait + " ms");
+    }
+
+    @Test
+    void tokensComeBackOverTime() throws InterruptedException {
+        TokenBuckets buckets = new TokenBuckets(1024);
+        TokenBuckets.Limit limit = new TokenBuckets.Limit(100, 1);
+
+        assertEquals(0, buckets.tryAcquire("user:alice", limit));
+        assertTrue(buckets.tryAcquire("user:alice", limit) > 0);
+
+        Thread.sleep(20);
+        assertEquals(0, buckets.tryAcquire("user:alice", limit));
+    }
+
+    @Test
+    void callersHaveTheirOwnBuckets() {
+        TokenBuckets buckets = new TokenBuckets(1024);
+        TokenBuckets.Limit limit = new TokenBuckets.Limit(1, 1);
+
+        assertEquals(0, buckets.tryAcquire("user:alice", limit));
+        assertTrue(buckets.tryAcquire("user:alice", limit) > 0);
+        assertEquals(0, buckets.tryAcquire("user:bob", limit));
+    }
+
+    @Test
+    void limitsMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBuckets.Limit(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBuckets.Limit(10, 0));
+    }
+}